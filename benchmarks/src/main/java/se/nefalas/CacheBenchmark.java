@@ -0,0 +1,72 @@
+package se.nefalas;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "SEVENTEEN_CLUE"})
+    public String corpus;
+
+    private Computer computer;
+    private Computer cachedComputer;
+    private SolveCache cache;
+    private Sudoku[] puzzles;
+    private Sudoku[] relabelled;
+
+    @Setup
+    public void setUp() {
+        this.computer = new Computer((sudoku, sudokuIndex) -> {}, (sudoku, sudokuIndex, stats) -> {});
+        this.cachedComputer = new Computer((sudoku, sudokuIndex) -> {}, (sudoku, sudokuIndex, stats) -> {});
+        this.cache = new SolveCache(1024);
+        this.cachedComputer.setCache(this.cache);
+        this.puzzles = Corpus.valueOf(this.corpus).getPuzzles();
+        this.relabelled = new Sudoku[this.puzzles.length];
+
+        for (int i = 0; i < this.puzzles.length; i++) {
+            this.cachedComputer.solveSequential(this.puzzles[i].copy(), Computer.ENGINE.DANCING_LINKS);
+            this.relabelled[i] = relabel(this.puzzles[i]);
+        }
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (Sudoku puzzle : this.puzzles) {
+            blackhole.consume(this.computer.solveSequential(puzzle.copy(), Computer.ENGINE.DANCING_LINKS));
+        }
+    }
+
+    @Benchmark
+    public void exactHit(Blackhole blackhole) {
+        for (Sudoku puzzle : this.puzzles) {
+            blackhole.consume(this.cachedComputer.solveSequential(puzzle.copy(), Computer.ENGINE.DANCING_LINKS));
+        }
+    }
+
+    @Benchmark
+    public void canonicalize(Blackhole blackhole) {
+        for (Sudoku puzzle : this.relabelled) {
+            blackhole.consume(CanonicalForm.of(puzzle));
+        }
+    }
+
+    private static Sudoku relabel(Sudoku puzzle) {
+        int size = puzzle.getGeometry().size;
+        int[] values = new int[puzzle.getGeometry().cells];
+
+        for (int i = 0; i < values.length; i++) {
+            int value = puzzle.getValue(i);
+            values[i] = value == 0 ? 0 : value % size + 1;
+        }
+
+        return new Sudoku(values);
+    }
+}
@@ -0,0 +1,39 @@
+package se.nefalas;
+
+enum Corpus {
+    EASY(
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300",
+            "000000001360000700009000000500610873000804009700000600600008500003000020000500064"
+    ),
+    MEDIUM(
+            "000174000070960400086000000090700000000501026002000007000000034603000100000850000",
+            "400000805030000000000700000020000060000080400000010000000603070500200000104000000"
+    ),
+    HARD(
+            "080600073001004900200000040008593060000000000500800030000300000450006000109000008",
+            "000200000000500090001009040000060000250000008006001007003600009008097520060050800",
+            "800000000003600000070090200050007000000045700000100030001000068008500010090000400"
+    ),
+    SEVENTEEN_CLUE(
+            "000000010400000000020000000000050407008000300001090000300400200050100000000806000",
+            "000000012000035000000600070700000300000400800100000000000120000080000040050000600",
+            "000000012003600000000007000410020000000500300700000600280000040000300500000000000",
+            "000000012008030000000000040120500000000004700060000000507000300000620000000100000"
+    );
+
+    private final String[] puzzles;
+
+    Corpus(String... puzzles) {
+        this.puzzles = puzzles;
+    }
+
+    Sudoku[] getPuzzles() {
+        Sudoku[] sudokus = new Sudoku[this.puzzles.length];
+
+        for (int i = 0; i < this.puzzles.length; i++) {
+            sudokus[i] = new Sudoku(this.puzzles[i]);
+        }
+
+        return sudokus;
+    }
+}
@@ -0,0 +1,131 @@
+package se.nefalas;
+
+import org.opencv.core.Mat;
+import org.opencv.core.Point;
+import org.openjdk.jmh.annotations.*;
+
+import javax.imageio.ImageIO;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderBenchmark {
+
+    @Param({"sudoku.jpg", "hard_sudoku.PNG", "hard_sudoku2.PNG"})
+    public String image;
+
+    @Param({"CELLS", "STRIP"})
+    public String ocrMode;
+
+    private SudokuReader reader;
+
+    private BufferedImage bufferedImage;
+    private Mat original;
+    private Mat gridDetectionImage;
+    private Mat ocrImage;
+    private SudokuReader.PrunedBBoxes bboxes;
+    private List<Point> corners;
+    private Rectangle[] boxes;
+    private boolean[] usedBoxes;
+    private BufferedImage ocrBufferedImage;
+
+    private Mat input;
+    private byte[] ocrBuffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStream inputStream = ReaderBenchmark.class.getClassLoader().getResourceAsStream(this.image)) {
+            if (inputStream == null) {
+                throw new UncheckedIOException(new IOException("Missing resource " + this.image));
+            }
+
+            this.bufferedImage = ImageIO.read(inputStream);
+        }
+
+        this.reader = new SudokuReader(values -> {});
+        this.input = new Mat();
+        this.reader.setOCRMode(SudokuReader.OCR_MODE.valueOf(this.ocrMode));
+        this.original = SudokuReader.imageToMat(this.bufferedImage);
+
+        // Runs the whole pipeline once so the reader holds the image the stages measure against.
+        if (this.reader.readSudoku(this.original) == null) {
+            throw new IllegalStateException("Could not read " + this.image);
+        }
+
+        this.gridDetectionImage = SudokuReader.prepareImageForGridDetection(this.original);
+        this.ocrImage = SudokuReader.prepareImageForOCR(this.original);
+        this.bboxes = this.reader.getBBoxes(this.original, this.gridDetectionImage);
+        this.corners = this.reader.getCornersFromRects(this.bboxes.getPruned());
+        this.boxes = this.reader.getBoxes(
+                this.reader.extractGridValues(this.corners, SudokuReader.GRID_VALUES.ROWS),
+                this.reader.extractGridValues(this.corners, SudokuReader.GRID_VALUES.COLUMNS)
+        );
+        this.usedBoxes = this.reader.getUsedBoxes(this.boxes, this.bboxes.getRemaining());
+        this.ocrBufferedImage = SudokuReader.matToImage(this.ocrImage);
+        this.ocrBuffer = new byte[(int) (this.ocrImage.total() * this.ocrImage.elemSize())];
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reader.close();
+    }
+
+    @Benchmark
+    public Mat imageToMat() {
+        return SudokuReader.imageToMat(this.bufferedImage, this.input);
+    }
+
+    @Benchmark
+    public Mat prepareImageForGridDetection() {
+        return SudokuReader.prepareImageForGridDetection(this.original);
+    }
+
+    @Benchmark
+    public Mat prepareImageForOCR() {
+        return SudokuReader.prepareImageForOCR(this.original);
+    }
+
+    @Benchmark
+    public SudokuReader.PrunedBBoxes getBBoxes() {
+        return this.reader.getBBoxes(this.original, this.gridDetectionImage);
+    }
+
+    @Benchmark
+    public Rectangle[] extractGrid() {
+        List<Point> corners = this.reader.getCornersFromRects(this.bboxes.getPruned());
+        List<Double> rows = this.reader.extractGridValues(corners, SudokuReader.GRID_VALUES.ROWS);
+        List<Double> cols = this.reader.extractGridValues(corners, SudokuReader.GRID_VALUES.COLUMNS);
+
+        return this.reader.getBoxes(rows, cols);
+    }
+
+    @Benchmark
+    public boolean[] getUsedBoxes() {
+        return this.reader.getUsedBoxes(this.boxes, this.bboxes.getRemaining());
+    }
+
+    @Benchmark
+    public BufferedImage matToImage() {
+        return SudokuReader.matToImage(this.ocrImage, this.ocrBuffer);
+    }
+
+    @Benchmark
+    public int[] readBoxes() {
+        return this.reader.readBoxes(this.ocrBufferedImage, this.boxes, this.usedBoxes);
+    }
+
+    @Benchmark
+    public Sudoku readSudoku() {
+        return this.reader.readSudoku(this.original);
+    }
+}
@@ -0,0 +1,47 @@
+package se.nefalas;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "SEVENTEEN_CLUE"})
+    public String corpus;
+
+    @Param({"BACKTRACKING", "DANCING_LINKS"})
+    public String engine;
+
+    private Computer computer;
+    private Computer.ENGINE solverEngine;
+    private Sudoku[] puzzles;
+
+    @Setup
+    public void setUp() {
+        this.computer = new Computer((sudoku, sudokuIndex) -> {}, (sudoku, sudokuIndex, stats) -> {});
+        this.solverEngine = Computer.ENGINE.valueOf(this.engine);
+        this.puzzles = Corpus.valueOf(this.corpus).getPuzzles();
+
+        for (Sudoku puzzle : this.puzzles) {
+            Sudoku solved = this.computer.solveSequential(puzzle.copy(), this.solverEngine);
+
+            if (solved == null || !solved.isFull()) {
+                throw new IllegalStateException("Corpus puzzle has no solution: " + puzzle);
+            }
+        }
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        for (Sudoku puzzle : this.puzzles) {
+            blackhole.consume(this.computer.solveSequential(puzzle.copy(), this.solverEngine));
+        }
+    }
+}
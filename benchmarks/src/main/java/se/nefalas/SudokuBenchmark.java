@@ -0,0 +1,72 @@
+package se.nefalas;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SudokuBenchmark {
+
+    @Param({"EASY", "MEDIUM", "HARD", "SEVENTEEN_CLUE"})
+    public String corpus;
+
+    private Computer computer;
+    private Sudoku puzzle;
+    private Sudoku propagated;
+    private int size;
+
+    @Setup
+    public void setUp() {
+        this.computer = new Computer((sudoku, sudokuIndex) -> {}, (sudoku, sudokuIndex, stats) -> {});
+        this.puzzle = Corpus.valueOf(this.corpus).getPuzzles()[0];
+        this.size = this.puzzle.getGeometry().size;
+
+        this.propagated = this.puzzle.copy();
+        this.computer.fillPossibleValues(this.propagated);
+    }
+
+    @Benchmark
+    public int cannotHaveValue() {
+        int count = 0;
+
+        for (int row = 0; row < this.size; row++) {
+            for (int column = 0; column < this.size; column++) {
+                for (int value = 1; value <= this.size; value++) {
+                    if (this.puzzle.cannotHaveValue(row, column, value)) {
+                        count++;
+                    }
+                }
+            }
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public void getPossibleValues(Blackhole blackhole) {
+        int cells = this.propagated.getGeometry().cells;
+
+        for (int i = 0; i < cells; i++) {
+            blackhole.consume(this.propagated.getPossibleValues(i));
+        }
+    }
+
+    @Benchmark
+    public Sudoku copy() {
+        return this.puzzle.copy();
+    }
+
+    @Benchmark
+    public Sudoku fillPossibleValues() {
+        Sudoku sudoku = this.puzzle.copy();
+        this.computer.fillPossibleValues(sudoku);
+
+        return sudoku;
+    }
+}
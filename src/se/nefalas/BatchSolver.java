@@ -0,0 +1,247 @@
+package se.nefalas;
+
+import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+class BatchSolver {
+
+    private static final int BLOCK_SIZE = 8192;
+
+    private final Computer computer;
+    private final Computer.ENGINE engine;
+    private final ForkJoinPool pool;
+    private SolveCache cache;
+    private long latencyBudget;
+
+    private long solvedCount;
+    private long failedCount;
+
+    BatchSolver(Computer.ENGINE engine, int parallelism) {
+        this.computer = new Computer((sudoku, index) -> {}, (sudoku, index, stats) -> {});
+        this.engine = engine;
+        this.pool = new ForkJoinPool(parallelism);
+
+        this.computer.getMetrics().register("batch");
+    }
+
+    void setCache(SolveCache cache) {
+        this.cache = cache;
+        this.computer.setCache(cache);
+    }
+
+    void setLatencyBudget(long budget, TimeUnit unit) {
+        this.latencyBudget = unit.toNanos(budget);
+    }
+
+    void solve(String inputPath, String outputPath) {
+        long start = System.nanoTime();
+
+        try {
+            SolutionWriter writer = SolutionWriter.open(outputPath);
+
+            try {
+                if (inputPath.equals("-")) {
+                    this.solveStream(new BufferedInputStream(System.in, 1 << 16), writer);
+                } else {
+                    this.solveMapped(Paths.get(inputPath), writer);
+                }
+            } finally {
+                if (outputPath == null) {
+                    writer.flush();
+                } else {
+                    writer.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            this.pool.shutdown();
+        }
+
+        long total = this.solvedCount + this.failedCount;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        String message = String.format(
+                "Solved %d of %d puzzles in %.4f seconds (%.1f puzzles per second)",
+                this.solvedCount,
+                total,
+                elapsedSeconds,
+                total / elapsedSeconds
+        );
+
+        PrintStream report = outputPath == null ? System.err : System.out;
+        report.println(message);
+
+        if (this.cache != null) {
+            report.println("Cache: " + this.cache);
+        }
+
+        SolverMetrics metrics = this.computer.getMetrics();
+        report.println("metrics " + metrics);
+
+        Map<String, Long> workerAllocatedBytes = metrics.getWorkerAllocatedBytes();
+        metrics.getWorkerNanos().forEach((worker, nanos) -> report.println(String.format(
+                "worker name=%s workNanos=%d allocatedBytes=%d",
+                worker,
+                nanos,
+                workerAllocatedBytes.get(worker)
+        )));
+    }
+
+    private void solveMapped(Path inputPath, SolutionWriter writer) throws IOException {
+        int[] offsets = new int[BLOCK_SIZE];
+        int[] lengths = new int[BLOCK_SIZE];
+
+        try (PuzzleCorpus corpus = new PuzzleCorpus(inputPath)) {
+            int count;
+
+            while ((count = corpus.nextBlock(offsets, lengths)) > 0) {
+                this.solveBlock(count, i -> corpus.getSudoku(offsets[i], lengths[i]), writer);
+            }
+        }
+    }
+
+    private void solveStream(BufferedInputStream inputStream, SolutionWriter writer) throws IOException {
+        List<int[]> block = new ArrayList<>(BLOCK_SIZE);
+
+        if (PackedPuzzleReader.isPacked(inputStream)) {
+            PackedPuzzleReader reader = new PackedPuzzleReader(inputStream);
+            int[] puzzle;
+
+            while ((puzzle = reader.read()) != null) {
+                this.addPuzzle(block, puzzle, writer);
+            }
+        } else {
+            this.readLines(inputStream, block, writer);
+        }
+
+        this.solveBlock(block, writer);
+    }
+
+    private void readLines(InputStream inputStream, List<int[]> block, SolutionWriter writer) throws IOException {
+        byte[] buffer = new byte[1 << 16];
+        int start = 0;
+        int end = 0;
+        boolean isComplete = false;
+
+        while (true) {
+            int recordEnd = PuzzleParser.findRecordEnd(buffer, start, end, isComplete);
+
+            if (recordEnd >= 0) {
+                this.addLine(block, buffer, start, recordEnd - start, writer);
+                start = recordEnd + 1;
+                continue;
+            }
+
+            if (isComplete) {
+                break;
+            }
+
+            // A record that is still being read stays in the buffer with its first line.
+            if (start > 0) {
+                System.arraycopy(buffer, start, buffer, 0, end - start);
+                end -= start;
+                start = 0;
+            }
+
+            if (end == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            int read = inputStream.read(buffer, end, buffer.length - end);
+
+            if (read < 0) {
+                isComplete = true;
+            } else {
+                end += read;
+            }
+        }
+    }
+
+    private void addLine(List<int[]> block, byte[] buffer, int offset, int length, SolutionWriter writer) throws IOException {
+        int[] puzzle;
+
+        try {
+            puzzle = PuzzleParser.parse(buffer, offset, length);
+        } catch (IllegalArgumentException e) {
+            puzzle = null;
+        }
+
+        this.addPuzzle(block, puzzle, writer);
+    }
+
+    private void addPuzzle(List<int[]> block, int[] puzzle, SolutionWriter writer) throws IOException {
+        block.add(puzzle);
+
+        if (block.size() == BLOCK_SIZE) {
+            this.solveBlock(block, writer);
+            block.clear();
+        }
+    }
+
+    private void solveBlock(List<int[]> block, SolutionWriter writer) throws IOException {
+        this.solveBlock(block.size(), i -> block.get(i) == null ? null : new Sudoku(block.get(i)), writer);
+    }
+
+    private void solveBlock(int count, IntFunction<Sudoku> puzzles, SolutionWriter writer) throws IOException {
+        Sudoku[] solutions = new Sudoku[count];
+        long firstIndex = this.solvedCount + this.failedCount;
+
+        try {
+            this.pool.submit(() -> IntStream.range(0, count)
+                    .parallel()
+                    .forEach(i -> solutions[i] = this.solve(puzzles, i, firstIndex))
+            ).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+
+        for (Sudoku solution : solutions) {
+            if (solution == null) {
+                this.failedCount++;
+                writer.writeEmpty();
+            } else {
+                this.solvedCount++;
+                writer.write(solution);
+            }
+        }
+    }
+
+    private Sudoku solve(IntFunction<Sudoku> puzzles, int index, long firstIndex) {
+        Sudoku puzzle;
+
+        try {
+            puzzle = puzzles.apply(index);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        if (puzzle == null) {
+            return null;
+        }
+
+        SolveStats stats = new SolveStats();
+        Sudoku solution = this.computer.solveSequential(puzzle, this.engine, stats);
+
+        if (this.latencyBudget > 0 && stats.getElapsedNanos() > this.latencyBudget) {
+            // The solver fills the puzzle in place, so the original is read again for the log line.
+            System.err.println(String.format(
+                    "slow-solve index=%d puzzle=%s %s",
+                    firstIndex + index,
+                    puzzles.apply(index),
+                    stats
+            ));
+        }
+
+        return solution;
+    }
+}
@@ -0,0 +1,59 @@
+package se.nefalas;
+
+interface BranchingStrategy {
+
+    BranchingStrategy FIRST_EMPTY = Sudoku::getFirstEmptyIndex;
+    BranchingStrategy MINIMUM_REMAINING_VALUES = sudoku -> selectMostConstrained(sudoku, false);
+    BranchingStrategy MOST_CONSTRAINED = sudoku -> selectMostConstrained(sudoku, true);
+
+    int selectIndex(Sudoku sudoku);
+
+    static int selectMostConstrained(Sudoku sudoku, boolean useDegree) {
+        int bestIndex = -1;
+        int bestCount = Integer.MAX_VALUE;
+        int bestDegree = -1;
+
+        for (int i = 0; i < sudoku.getGeometry().cells; i++) {
+            if (sudoku.getValue(i) != 0) {
+                continue;
+            }
+
+            int count = sudoku.getCandidateCount(i);
+
+            if (count > bestCount) {
+                continue;
+            }
+
+            if (count <= 1) {
+                return i;
+            }
+
+            if (count < bestCount) {
+                bestIndex = i;
+                bestCount = count;
+                bestDegree = useDegree ? getDegree(sudoku, i) : -1;
+            } else if (useDegree) {
+                int degree = getDegree(sudoku, i);
+
+                if (degree > bestDegree) {
+                    bestIndex = i;
+                    bestDegree = degree;
+                }
+            }
+        }
+
+        return bestIndex;
+    }
+
+    static int getDegree(Sudoku sudoku, int index) {
+        int degree = 0;
+
+        for (int peer : sudoku.getGeometry().peers[index]) {
+            if (sudoku.getValue(peer) == 0) {
+                degree++;
+            }
+        }
+
+        return degree;
+    }
+}
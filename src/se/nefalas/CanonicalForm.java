@@ -0,0 +1,417 @@
+package se.nefalas;
+
+class CanonicalForm {
+
+    private static final int MAX_BOX_SIZE = 3;
+    private static final int MAX_PLACEMENTS = 1 << 19;
+
+    private final Geometry geometry;
+    private final String key;
+    private final boolean transposed;
+    private final int[] rows;
+    private final int[] columns;
+    private final int[] labels;
+    private final int[] digits;
+
+    private CanonicalForm(Geometry geometry, int[] canonical, boolean transposed, int[] rows, int[] columns, int[] labels) {
+        this.geometry = geometry;
+        this.transposed = transposed;
+        this.rows = rows;
+        this.columns = columns;
+        this.labels = labels;
+        this.digits = new int[labels.length];
+
+        for (int digit = 0; digit < labels.length; digit++) {
+            this.digits[labels[digit]] = digit;
+        }
+
+        StringBuilder builder = new StringBuilder(geometry.cells);
+        for (int value : canonical) {
+            builder.append(value == 0 ? '0' : Sudoku.valueToChar(value));
+        }
+
+        this.key = builder.toString();
+    }
+
+    static boolean isSupported(Geometry geometry) {
+        return geometry.boxSize <= MAX_BOX_SIZE;
+    }
+
+    static CanonicalForm of(Sudoku sudoku) {
+        Geometry geometry = sudoku.getGeometry();
+
+        if (!isSupported(geometry)) {
+            throw new IllegalArgumentException("Canonical forms are limited to box size " + MAX_BOX_SIZE);
+        }
+
+        Search search = new Search(sudoku);
+
+        if (!search.run(false) || !search.run(true)) {
+            return null;
+        }
+
+        return search.toCanonicalForm();
+    }
+
+    String getKey() {
+        return this.key;
+    }
+
+    int[] toCanonical(Sudoku solution) {
+        int size = this.geometry.size;
+        int[] canonical = new int[this.geometry.cells];
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                int value = solution.getValue(this.getSourceIndex(row, column));
+                canonical[row * size + column] = this.labels[value];
+            }
+        }
+
+        return canonical;
+    }
+
+    Sudoku fromCanonical(int[] canonical) {
+        int size = this.geometry.size;
+        int[] values = new int[this.geometry.cells];
+
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                values[this.getSourceIndex(row, column)] = this.digits[canonical[row * size + column]];
+            }
+        }
+
+        return new Sudoku(values);
+    }
+
+    private int getSourceIndex(int row, int column) {
+        int sourceRow = this.rows[row];
+        int sourceColumn = this.columns[column];
+
+        return this.transposed
+                ? this.geometry.getIndex(sourceColumn, sourceRow)
+                : this.geometry.getIndex(sourceRow, sourceColumn);
+    }
+
+    private static class Search {
+        private final Geometry geometry;
+        private final int[] values;
+
+        private final int[] current;
+        private final int[] currentRows;
+        private final int[] currentColumns;
+        private final int[] currentLabels;
+        private final int[] peekLabels;
+        private final int[] candidateRow;
+        private final int[][] minimumRows;
+        private final boolean[] usedRows;
+        private final boolean[] usedColumns;
+        private final boolean[] usedBoxes;
+        private boolean transposed;
+        private int labelCount;
+        private int smallerFrom;
+        private int bestVersion;
+        private int placements;
+
+        private int[] best;
+        private int[] bestRows;
+        private int[] bestColumns;
+        private int[] bestLabels;
+        private boolean bestTransposed;
+
+        Search(Sudoku sudoku) {
+            this.geometry = sudoku.getGeometry();
+            this.values = new int[this.geometry.cells];
+
+            for (int i = 0; i < this.geometry.cells; i++) {
+                this.values[i] = sudoku.getValue(i);
+            }
+
+            this.current = new int[this.geometry.cells];
+            this.currentRows = new int[this.geometry.size];
+            this.currentColumns = new int[this.geometry.size];
+            this.currentLabels = new int[this.geometry.size + 1];
+            this.peekLabels = new int[this.geometry.size + 1];
+            this.candidateRow = new int[this.geometry.size];
+            this.minimumRows = new int[this.geometry.size][this.geometry.size];
+            this.usedRows = new boolean[this.geometry.size];
+            this.usedColumns = new boolean[this.geometry.size];
+            this.usedBoxes = new boolean[2 * this.geometry.boxSize];
+        }
+
+        boolean run(boolean transposed) {
+            this.transposed = transposed;
+            this.labelCount = 0;
+
+            for (int sourceRow = 0; sourceRow < this.geometry.size; sourceRow++) {
+                this.smallerFrom = this.best == null ? -1 : Integer.MAX_VALUE;
+                this.currentRows[0] = sourceRow;
+                this.usedRows[sourceRow] = true;
+                this.usedBoxes[sourceRow / this.geometry.boxSize] = true;
+
+                this.searchFirstRow(0);
+
+                this.usedRows[sourceRow] = false;
+                this.usedBoxes[sourceRow / this.geometry.boxSize] = false;
+            }
+
+            return this.placements <= MAX_PLACEMENTS;
+        }
+
+        private void searchFirstRow(int column) {
+            int size = this.geometry.size;
+            int boxSize = this.geometry.boxSize;
+
+            if (this.placements > MAX_PLACEMENTS) {
+                return;
+            }
+
+            if (column == size) {
+                this.searchRows(1);
+
+                return;
+            }
+
+            int stack = column % boxSize == 0 ? -1 : this.currentColumns[column - 1] / boxSize;
+            int minimum = -1;
+
+            for (int sourceColumn = 0; sourceColumn < size; sourceColumn++) {
+                if (this.isAllowedColumn(sourceColumn, stack)) {
+                    int label = this.peekLabel(this.currentRows[0], sourceColumn);
+
+                    if (minimum < 0 || compare(label, minimum) < 0) {
+                        minimum = label;
+                    }
+                }
+            }
+
+            int smallerFrom = this.smallerFrom;
+            int comparison = smallerFrom < column ? -1 : compare(minimum, this.best[column]);
+
+            if (minimum < 0 || comparison > 0) {
+                return;
+            }
+
+            for (int sourceColumn = 0; sourceColumn < size; sourceColumn++) {
+                if (!this.isAllowedColumn(sourceColumn, stack) || this.peekLabel(this.currentRows[0], sourceColumn) != minimum) {
+                    continue;
+                }
+
+                int sourceStack = sourceColumn / boxSize;
+                int labelCount = this.labelCount;
+                int bestVersion = this.bestVersion;
+
+                this.currentColumns[column] = sourceColumn;
+                this.placeCell(0, column);
+                this.smallerFrom = comparison < 0 ? Math.min(smallerFrom, column) : smallerFrom;
+                this.usedColumns[sourceColumn] = true;
+                this.usedBoxes[boxSize + sourceStack] = true;
+
+                this.searchFirstRow(column + 1);
+
+                this.usedColumns[sourceColumn] = false;
+                this.usedBoxes[boxSize + sourceStack] = stack >= 0;
+                this.unlabel(labelCount);
+
+                if (this.bestVersion != bestVersion) {
+                    smallerFrom = Integer.MAX_VALUE;
+                    comparison = 0;
+                }
+            }
+
+            this.smallerFrom = smallerFrom;
+        }
+
+        private void searchRows(int row) {
+            int size = this.geometry.size;
+            int boxSize = this.geometry.boxSize;
+
+            if (this.placements > MAX_PLACEMENTS) {
+                return;
+            }
+
+            if (row == size) {
+                if (this.smallerFrom < this.geometry.cells) {
+                    this.recordBest();
+                }
+
+                return;
+            }
+
+            int band = row % boxSize == 0 ? -1 : this.currentRows[row - 1] / boxSize;
+            int[] minimum = null;
+
+            for (int sourceRow = 0; sourceRow < size; sourceRow++) {
+                if (this.isAllowedRow(sourceRow, band)) {
+                    int[] labels = this.peekRow(sourceRow, this.candidateRow);
+
+                    if (minimum == null || compareRows(labels, 0, minimum, 0, size) < 0) {
+                        minimum = this.minimumRows[row];
+                        System.arraycopy(labels, 0, minimum, 0, size);
+                    }
+                }
+            }
+
+            int smallerFrom = this.smallerFrom;
+            int comparison = smallerFrom < row * size ? -1 : compareRows(minimum, 0, this.best, row * size, size);
+
+            if (minimum == null || comparison > 0) {
+                return;
+            }
+
+            for (int sourceRow = 0; sourceRow < size; sourceRow++) {
+                if (!this.isAllowedRow(sourceRow, band)
+                        || compareRows(this.peekRow(sourceRow, this.candidateRow), 0, minimum, 0, size) != 0) {
+                    continue;
+                }
+
+                int sourceBand = sourceRow / boxSize;
+                int labelCount = this.labelCount;
+                int bestVersion = this.bestVersion;
+
+                this.currentRows[row] = sourceRow;
+
+                for (int column = 0; column < size; column++) {
+                    this.placeCell(row, column);
+                }
+
+                this.smallerFrom = comparison < 0 ? Math.min(smallerFrom, row * size) : smallerFrom;
+                this.usedRows[sourceRow] = true;
+                this.usedBoxes[sourceBand] = true;
+
+                this.searchRows(row + 1);
+
+                this.usedRows[sourceRow] = false;
+                this.usedBoxes[sourceBand] = band >= 0;
+                this.unlabel(labelCount);
+
+                if (this.bestVersion != bestVersion) {
+                    smallerFrom = Integer.MAX_VALUE;
+                    comparison = 0;
+                }
+            }
+
+            this.smallerFrom = smallerFrom;
+        }
+
+        private boolean isAllowedColumn(int sourceColumn, int stack) {
+            int sourceStack = sourceColumn / this.geometry.boxSize;
+
+            return !this.usedColumns[sourceColumn]
+                    && (stack < 0 ? !this.usedBoxes[this.geometry.boxSize + sourceStack] : sourceStack == stack);
+        }
+
+        private boolean isAllowedRow(int sourceRow, int band) {
+            int sourceBand = sourceRow / this.geometry.boxSize;
+
+            return !this.usedRows[sourceRow] && (band < 0 ? !this.usedBoxes[sourceBand] : sourceBand == band);
+        }
+
+        private static int compare(int label, int bestLabel) {
+            return Integer.compareUnsigned(label - 1, bestLabel - 1);
+        }
+
+        private static int compareRows(int[] labels, int offset, int[] other, int otherOffset, int length) {
+            for (int i = 0; i < length; i++) {
+                int comparison = compare(labels[offset + i], other[otherOffset + i]);
+
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+
+            return 0;
+        }
+
+        private int[] peekRow(int sourceRow, int[] labels) {
+            int nextLabel = this.labelCount;
+
+            System.arraycopy(this.currentLabels, 0, this.peekLabels, 0, this.peekLabels.length);
+
+            for (int column = 0; column < this.geometry.size; column++) {
+                int value = this.getSourceValue(sourceRow, this.currentColumns[column]);
+
+                if (value != 0 && this.peekLabels[value] == 0) {
+                    this.peekLabels[value] = ++nextLabel;
+                }
+
+                labels[column] = this.peekLabels[value];
+            }
+
+            this.placements += this.geometry.size;
+
+            return labels;
+        }
+
+        private int peekLabel(int sourceRow, int sourceColumn) {
+            int value = this.getSourceValue(sourceRow, sourceColumn);
+
+            this.placements++;
+
+            if (value == 0) {
+                return 0;
+            }
+
+            return this.currentLabels[value] == 0 ? this.labelCount + 1 : this.currentLabels[value];
+        }
+
+        private void placeCell(int row, int column) {
+            int value = this.getSourceValue(this.currentRows[row], this.currentColumns[column]);
+
+            if (value != 0 && this.currentLabels[value] == 0) {
+                this.currentLabels[value] = ++this.labelCount;
+            }
+
+            this.current[this.geometry.getIndex(row, column)] = this.currentLabels[value];
+        }
+
+        private int getSourceValue(int sourceRow, int sourceColumn) {
+            return this.transposed
+                    ? this.values[this.geometry.getIndex(sourceColumn, sourceRow)]
+                    : this.values[this.geometry.getIndex(sourceRow, sourceColumn)];
+        }
+
+        private void unlabel(int labelCount) {
+            for (int digit = 1; digit < this.currentLabels.length; digit++) {
+                if (this.currentLabels[digit] > labelCount) {
+                    this.currentLabels[digit] = 0;
+                }
+            }
+
+            this.labelCount = labelCount;
+        }
+
+        private void recordBest() {
+            this.best = this.current.clone();
+            this.bestRows = this.currentRows.clone();
+            this.bestColumns = this.currentColumns.clone();
+            this.bestLabels = this.currentLabels.clone();
+            this.bestTransposed = this.transposed;
+            this.smallerFrom = Integer.MAX_VALUE;
+            this.bestVersion++;
+        }
+
+        CanonicalForm toCanonicalForm() {
+            int label = 0;
+
+            for (int value : this.bestLabels) {
+                label = Math.max(label, value);
+            }
+
+            for (int digit = 1; digit < this.bestLabels.length; digit++) {
+                if (this.bestLabels[digit] == 0) {
+                    this.bestLabels[digit] = ++label;
+                }
+            }
+
+            return new CanonicalForm(
+                    this.geometry,
+                    this.best,
+                    this.bestTransposed,
+                    this.bestRows,
+                    this.bestColumns,
+                    this.bestLabels
+            );
+        }
+    }
+}
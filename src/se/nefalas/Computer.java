@@ -1,154 +1,405 @@
 package se.nefalas;
 
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 class Computer {
 
+    enum ENGINE {
+        BACKTRACKING,
+        DANCING_LINKS
+    }
+
+    private static final ScheduledExecutorService DEADLINES = createDeadlineScheduler();
+    private static final ThreadLocal<DancingLinks> DANCING_LINKS = ThreadLocal.withInitial(DancingLinks::new);
+
     private OnUpdate onUpdate;
     private OnSolve onSolve;
 
-    private boolean isSolved;
+    private BranchingStrategy branchingStrategy;
+    private BranchingStrategy splitStrategy;
+    private Propagator propagator;
+    private SolveCache cache;
+    private final SolverMetrics metrics;
+
+    private ForkJoinPool pool;
+    private int splitDepth;
 
     Computer(OnUpdate onUpdate, OnSolve onSolve) {
         this.onUpdate = onUpdate;
         this.onSolve = onSolve;
+
+        this.branchingStrategy = BranchingStrategy.MINIMUM_REMAINING_VALUES;
+        this.splitStrategy = BranchingStrategy.FIRST_EMPTY;
+        this.propagator = new Propagator(Propagator.ALL_TECHNIQUES);
+        this.metrics = new SolverMetrics();
+
+        this.pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        this.splitDepth = 3;
     }
 
-    void solve(Sudoku sudoku) {
-        long start = System.currentTimeMillis();
+    void setParallelism(int parallelism) {
+        this.pool.shutdown();
+        this.pool = new ForkJoinPool(parallelism);
+    }
 
-        fillPossibleValues(sudoku);
+    void setSplitDepth(int splitDepth) {
+        this.splitDepth = splitDepth;
+    }
 
-        if (sudoku.isFull()) {
-            this.onSolve.run(sudoku, 4, start);
+    void setBranchingStrategy(BranchingStrategy branchingStrategy) {
+        this.branchingStrategy = branchingStrategy;
+    }
+
+    void setSplitStrategy(BranchingStrategy splitStrategy) {
+        this.splitStrategy = splitStrategy;
+    }
+
+    void setTechniques(EnumSet<Propagator.TECHNIQUE> techniques) {
+        this.propagator = new Propagator(techniques);
+    }
+
+    void setCache(SolveCache cache) {
+        this.cache = cache;
+    }
+
+    SolverMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    CompletableFuture<Sudoku> solve(Sudoku sudoku) {
+        return this.solve(sudoku, ENGINE.BACKTRACKING);
+    }
+
+    CompletableFuture<Sudoku> solve(Sudoku sudoku, ENGINE engine) {
+        return this.solve(sudoku, engine, 0, TimeUnit.MILLISECONDS);
+    }
+
+    CompletableFuture<Sudoku> solve(Sudoku sudoku, ENGINE engine, long timeout, TimeUnit unit) {
+        SolveContext context = new SolveContext(new SolveStats());
+
+        if (timeout > 0) {
+            context.setDeadline(timeout, unit);
+        }
+
+        if (this.cache != null) {
+            SolveCache.Lookup lookup = this.cache.lookup(sudoku);
+
+            if (lookup.getSolution() != null) {
+                context.complete(lookup.getSolution(), 4);
+
+                return context.future;
+            }
 
-            return;
+            long start = System.nanoTime();
+            context.future.thenAccept(result -> this.cache.put(lookup, result, System.nanoTime() - start));
         }
 
-        int firstIndex = sudoku.getFirstEmptyIndex();
-        int[] possibleValues = sudoku.getPossibleValues(firstIndex);
+        if (engine == ENGINE.DANCING_LINKS) {
+            this.pool.execute(new DancingLinksTask(sudoku, context));
 
-        for (int value : possibleValues) {
-            Sudoku copy = sudoku.copy();
-            copy.setValue(firstIndex, value);
+            return context.future;
+        }
+
+        SolveStats stats = new SolveStats();
+        stats.startWork();
+        this.propagate(sudoku, stats);
+        stats.stopWork();
+        context.merge(stats);
 
-            String name = "Solver " + value + " at " + firstIndex;
+        if (sudoku.isFull()) {
+            context.complete(sudoku, 4);
 
-            RecursiveThreadSolver solver = new RecursiveThreadSolver(copy, name, start, value - 1);
-            solver.start();
+            return context.future;
         }
+
+        this.pool.execute(new SolveTask(sudoku, 0, 0, context));
+
+        return context.future;
     }
 
-    private void fillPossibleValues(Sudoku sudoku) {
-        int row, column;
-        boolean didChange;
+    Sudoku solveSequential(Sudoku sudoku, ENGINE engine) {
+        return this.solveSequential(sudoku, engine, new SolveStats());
+    }
 
-        do {
-            didChange = false;
-            for (int i = 0; i < 81; i++) {
-                if (sudoku.isEmptyAtIndex(i)) {
-                    continue;
-                }
+    Sudoku solveSequential(Sudoku sudoku, ENGINE engine, SolveStats stats) {
+        long start = System.nanoTime();
 
-                row = i / 9;
-                column = i % 9;
+        stats.startWork();
+        Sudoku solved = this.solveCached(sudoku, engine, stats);
+        stats.stopWork();
+        stats.setElapsedNanos(System.nanoTime() - start);
 
-                int currentValue = sudoku.getValue(row, column);
+        this.metrics.recordWork(stats);
+        this.metrics.recordSolve(stats.getElapsedNanos(), solved != null);
 
-                if (currentValue != 0) {
-                    sudoku.emptyPossibleValues(row, column, currentValue);
+        return solved;
+    }
 
-                    didChange = true;
-                } else {
-                    int[] remainingValues = sudoku.getPossibleValues(row, column);
-                    if (remainingValues.length == 1) {
-                        sudoku.setValue(row, column, remainingValues[0]);
-                        sudoku.emptyPossibleValues(row, column, remainingValues[0]);
+    private Sudoku solveCached(Sudoku sudoku, ENGINE engine, SolveStats stats) {
+        if (this.cache == null) {
+            return this.solveUncached(sudoku, engine, stats);
+        }
 
-                        didChange = true;
-                    }
-                }
-            }
-        } while (didChange);
+        SolveCache.Lookup lookup = this.cache.lookup(sudoku);
+
+        if (lookup.getSolution() != null) {
+            return lookup.getSolution();
+        }
+
+        long start = System.nanoTime();
+        Sudoku solved = this.solveUncached(sudoku, engine, stats);
+        this.cache.put(lookup, solved, System.nanoTime() - start);
+
+        return solved;
     }
 
-    private Sudoku solveRecursive(Sudoku sudoku, int index) {
-        if (isSolved) return null;
+    private Sudoku solveUncached(Sudoku sudoku, ENGINE engine, SolveStats stats) {
+        if (engine == ENGINE.DANCING_LINKS) {
+            return DANCING_LINKS.get().solve(sudoku, () -> false, stats);
+        }
+
+        this.propagate(sudoku, stats);
+
+        if (sudoku.isFull()) {
+            return sudoku;
+        }
+
+        return solveRecursive(sudoku, 0, 0, new SolveContext(stats), stats);
+    }
+
+    void fillPossibleValues(Sudoku sudoku) {
+        this.propagator.propagate(sudoku);
+    }
+
+    private void propagate(Sudoku sudoku, SolveStats stats) {
+        this.propagator.propagate(sudoku);
+        stats.propagation();
+    }
+
+    private Sudoku solveRecursive(Sudoku sudoku, int index, int depth, SolveContext context, SolveStats stats) {
+        if (context.isStopped()) return null;
         if (sudoku.isFull()) return sudoku;
 
-        int row, column;
-        for (int i = 0; i < 81; i++) {
-            row = i / 9;
-            column = i % 9;
+        stats.node(depth);
 
-            if (sudoku.getValue(row, column) != 0) {
-                continue;
-            }
+        int cellIndex = this.branchingStrategy.selectIndex(sudoku);
 
-            int[] possibleValues = sudoku.getPossibleValues(row, column);
-            for (int value : possibleValues) {
-                Sudoku copy = sudoku.copy();
-                copy.setValue(row, column, value);
+        for (int mask = sudoku.getCandidates(cellIndex); mask != 0; mask = Sudoku.withoutLowestValue(mask)) {
+            int value = Sudoku.lowestValue(mask);
+            int checkpoint = sudoku.checkpoint();
 
-                this.onUpdate.run(copy, index);
+            sudoku.setValue(cellIndex, value);
+            sudoku.addTechnique(Propagator.TECHNIQUE.BACKTRACKING);
 
-                fillPossibleValues(copy);
+            this.onUpdate.run(sudoku, index);
 
-                if (copy.isFull()) {
-                    return copy;
-                } else {
-                    Sudoku solved = solveRecursive(copy, index);
+            this.propagator.propagate(sudoku, cellIndex);
+            stats.propagation();
 
-                    if (solved != null) {
-                        return solved;
-                    }
-                }
+            if (sudoku.isFull()) {
+                return sudoku;
             }
 
-            break;
+            Sudoku solved = solveRecursive(sudoku, index, depth + 1, context, stats);
+
+            if (solved != null) {
+                return solved;
+            }
+
+            sudoku.undo(checkpoint);
+            stats.backtrack();
         }
 
         return null;
     }
 
-    class RecursiveThreadSolver implements Runnable {
-        private Thread thread;
-        private String name;
-        private long start;
-        private int index;
+    class SolveContext {
+        private final CompletableFuture<Sudoku> future;
+        private final SolveStats stats;
+        private final long start;
+
+        SolveContext(SolveStats stats) {
+            this.future = new CompletableFuture<>();
+            this.stats = stats;
+            this.start = System.nanoTime();
+        }
+
+        void setDeadline(long timeout, TimeUnit unit) {
+            ScheduledFuture<?> deadline = DEADLINES.schedule(
+                    () -> {
+                        if (this.future.completeExceptionally(new TimeoutException())) {
+                            this.record(false);
+                        }
+                    },
+                    timeout,
+                    unit
+            );
+
+            this.future.whenComplete((result, throwable) -> deadline.cancel(false));
+        }
+
+        boolean isStopped() {
+            return this.future.isDone();
+        }
+
+        void merge(SolveStats taskStats) {
+            this.stats.merge(taskStats);
+            metrics.recordWork(taskStats);
+        }
+
+        void complete(Sudoku result, int index) {
+            if (this.future.complete(result)) {
+                this.record(true);
+                Computer.this.onSolve.run(result, index, this.stats);
+            }
+        }
+
+        void finish() {
+            if (this.future.complete(null)) {
+                this.record(false);
+            }
+        }
+
+        private void record(boolean solved) {
+            this.stats.setElapsedNanos(System.nanoTime() - this.start);
+            metrics.recordSolve(this.stats.getElapsedNanos(), solved);
+        }
+    }
+
+    class SolveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
 
-        private Sudoku sudoku;
+        private final Sudoku sudoku;
+        private final int index;
+        private final int depth;
+        private final SolveContext context;
 
-        RecursiveThreadSolver(Sudoku sudoku, String name, long start, int index) {
+        SolveTask(Sudoku sudoku, int index, int depth, SolveContext context) {
             this.sudoku = sudoku;
-            this.name = name;
-            this.start = start;
             this.index = index;
+            this.depth = depth;
+            this.context = context;
         }
 
         @Override
-        public void run() {
-            Sudoku result = solveRecursive(this.sudoku, this.index);
+        protected void compute() {
+            SolveStats stats = new SolveStats();
 
-            if (result != null) {
-                isSolved = true;
+            stats.startWork();
+            List<SolveTask> subtasks = this.search(stats);
+            stats.stopWork();
+            this.context.merge(stats);
 
-                Computer.this.onSolve.run(result, this.index, start);
+            if (subtasks != null) {
+                invokeAll(subtasks);
+            }
+
+            if (this.depth == 0) {
+                this.context.finish();
             }
         }
 
-        void start() {
-            if (this.thread == null) {
-                this.thread = new Thread(this, this.name);
-                this.thread.start();
+        private List<SolveTask> search(SolveStats stats) {
+            if (this.context.isStopped()) {
+                return null;
             }
+
+            if (this.depth >= splitDepth) {
+                Sudoku result = solveRecursive(this.sudoku, this.index, this.depth, this.context, stats);
+
+                if (result != null) {
+                    this.context.complete(result, this.index);
+                }
+
+                return null;
+            }
+
+            stats.node(this.depth);
+
+            BranchingStrategy strategy = this.depth == 0 ? splitStrategy : branchingStrategy;
+            int cellIndex = strategy.selectIndex(this.sudoku);
+
+            List<SolveTask> subtasks = new ArrayList<>();
+            for (int mask = this.sudoku.getCandidates(cellIndex); mask != 0; mask = Sudoku.withoutLowestValue(mask)) {
+                int value = Sudoku.lowestValue(mask);
+                Sudoku copy = this.sudoku.copy();
+                copy.setValue(cellIndex, value);
+                copy.addTechnique(Propagator.TECHNIQUE.BACKTRACKING);
+
+                propagator.propagate(copy, cellIndex);
+                stats.propagation();
+
+                int subtaskIndex = this.depth == 0 ? value - 1 : this.index;
+
+                if (copy.isFull()) {
+                    this.context.complete(copy, subtaskIndex);
+
+                    return null;
+                }
+
+                subtasks.add(new SolveTask(copy, subtaskIndex, this.depth + 1, this.context));
+            }
+
+            return subtasks;
         }
     }
 
+    class DancingLinksTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Sudoku sudoku;
+        private final SolveContext context;
+
+        DancingLinksTask(Sudoku sudoku, SolveContext context) {
+            this.sudoku = sudoku;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            SolveStats stats = new SolveStats();
+
+            stats.startWork();
+            Sudoku result = DANCING_LINKS.get().solve(this.sudoku, this.context::isStopped, stats);
+            stats.stopWork();
+            this.context.merge(stats);
+
+            if (result != null) {
+                this.context.complete(result, 4);
+            }
+
+            this.context.finish();
+        }
+    }
+
+    private static ScheduledExecutorService createDeadlineScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "Solver deadlines");
+            thread.setDaemon(true);
+
+            return thread;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+
+        return scheduler;
+    }
+
     interface OnUpdate {
         void run(Sudoku sudoku, int sudokuIndex);
     }
 
     interface OnSolve {
-        void run(Sudoku sudoku, int sudokuIndex, long start);
+        void run(Sudoku sudoku, int sudokuIndex, SolveStats stats);
     }
 
 }
\ No newline at end of file
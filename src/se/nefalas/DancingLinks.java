@@ -0,0 +1,255 @@
+package se.nefalas;
+
+import java.util.function.BooleanSupplier;
+
+class DancingLinks {
+
+    private static final int ROOT = 0;
+
+    private Geometry geometry;
+    private int constraints;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column;
+    private int[] candidate;
+    private int[] columnSize;
+
+    private int[] candidateNode;
+    private int[] solution;
+
+    private BooleanSupplier isStopped;
+    private SolveStats stats;
+    private int givenCount;
+
+    Sudoku solve(Sudoku sudoku) {
+        return this.solve(sudoku, () -> false, new SolveStats());
+    }
+
+    Sudoku solve(Sudoku sudoku, BooleanSupplier isStopped, SolveStats stats) {
+        this.isStopped = isStopped;
+        this.stats = stats;
+        this.allocate(sudoku.getGeometry());
+        this.build();
+
+        int size = this.geometry.size;
+        int depth = 0;
+
+        for (int i = 0; i < this.geometry.cells; i++) {
+            int value = sudoku.getValue(i);
+
+            if (value == 0) {
+                continue;
+            }
+
+            int node = this.candidateNode[i * size + value - 1];
+
+            if (!this.isAvailable(node)) {
+                return null;
+            }
+
+            this.select(node);
+            this.solution[depth++] = node;
+        }
+
+        this.givenCount = depth;
+
+        if (!this.search(depth)) {
+            return null;
+        }
+
+        Sudoku solved = sudoku.copy();
+
+        for (int node : this.solution) {
+            int row = this.candidate[node];
+            solved.setValue(row / size, row % size + 1);
+        }
+
+        return solved;
+    }
+
+    private boolean search(int depth) {
+        if (this.right[ROOT] == ROOT) {
+            return true;
+        }
+
+        if (this.isStopped.getAsBoolean()) {
+            return false;
+        }
+
+        this.stats.node(depth - this.givenCount);
+
+        int chosen = this.chooseColumn();
+
+        if (this.columnSize[chosen] == 0) {
+            return false;
+        }
+
+        this.cover(chosen);
+
+        for (int node = this.down[chosen]; node != chosen; node = this.down[node]) {
+            this.solution[depth] = node;
+
+            for (int j = this.right[node]; j != node; j = this.right[j]) {
+                this.cover(this.column[j]);
+            }
+
+            if (this.search(depth + 1)) {
+                return true;
+            }
+
+            for (int j = this.left[node]; j != node; j = this.left[j]) {
+                this.uncover(this.column[j]);
+            }
+
+            this.stats.backtrack();
+        }
+
+        this.uncover(chosen);
+
+        return false;
+    }
+
+    private int chooseColumn() {
+        int chosen = this.right[ROOT];
+        int size = this.columnSize[chosen];
+
+        for (int c = this.right[chosen]; c != ROOT && size > 1; c = this.right[c]) {
+            if (this.columnSize[c] < size) {
+                chosen = c;
+                size = this.columnSize[c];
+            }
+        }
+
+        return chosen;
+    }
+
+    private boolean isAvailable(int node) {
+        int j = node;
+
+        do {
+            int c = this.column[j];
+
+            if (this.left[this.right[c]] != c) {
+                return false;
+            }
+
+            j = this.right[j];
+        } while (j != node);
+
+        return true;
+    }
+
+    private void select(int node) {
+        int j = node;
+
+        do {
+            this.cover(this.column[j]);
+            j = this.right[j];
+        } while (j != node);
+    }
+
+    private void cover(int c) {
+        this.right[this.left[c]] = this.right[c];
+        this.left[this.right[c]] = this.left[c];
+
+        for (int i = this.down[c]; i != c; i = this.down[i]) {
+            for (int j = this.right[i]; j != i; j = this.right[j]) {
+                this.up[this.down[j]] = this.up[j];
+                this.down[this.up[j]] = this.down[j];
+                this.columnSize[this.column[j]]--;
+            }
+        }
+    }
+
+    private void uncover(int c) {
+        for (int i = this.up[c]; i != c; i = this.up[i]) {
+            for (int j = this.left[i]; j != i; j = this.left[j]) {
+                this.columnSize[this.column[j]]++;
+                this.up[this.down[j]] = j;
+                this.down[this.up[j]] = j;
+            }
+        }
+
+        this.right[this.left[c]] = c;
+        this.left[this.right[c]] = c;
+    }
+
+    private void allocate(Geometry geometry) {
+        if (this.geometry == geometry) {
+            return;
+        }
+
+        int candidates = geometry.cells * geometry.size;
+        int nodes = 1 + 4 * geometry.cells + 4 * candidates;
+
+        this.geometry = geometry;
+        this.constraints = 4 * geometry.cells;
+
+        this.left = new int[nodes];
+        this.right = new int[nodes];
+        this.up = new int[nodes];
+        this.down = new int[nodes];
+        this.column = new int[nodes];
+        this.candidate = new int[nodes];
+        this.columnSize = new int[this.constraints + 1];
+
+        this.candidateNode = new int[candidates];
+        this.solution = new int[geometry.cells];
+    }
+
+    private void build() {
+        int constraints = this.constraints;
+        int cells = this.geometry.cells;
+        int size = this.geometry.size;
+
+        for (int c = 0; c <= constraints; c++) {
+            this.left[c] = c == 0 ? constraints : c - 1;
+            this.right[c] = c == constraints ? 0 : c + 1;
+            this.up[c] = c;
+            this.down[c] = c;
+            this.column[c] = c;
+            this.columnSize[c] = 0;
+        }
+
+        int node = constraints + 1;
+
+        for (int cell = 0; cell < cells; cell++) {
+            int row = this.geometry.rowOf[cell];
+            int col = this.geometry.columnOf[cell];
+            int block = this.geometry.blockOf[cell];
+
+            for (int digit = 0; digit < size; digit++) {
+                int index = cell * size + digit;
+                int first = node;
+
+                this.candidateNode[index] = first;
+
+                node = this.addNode(node, first, index, 1 + cell);
+                node = this.addNode(node, first, index, 1 + cells + row * size + digit);
+                node = this.addNode(node, first, index, 1 + 2 * cells + col * size + digit);
+                node = this.addNode(node, first, index, 1 + 3 * cells + block * size + digit);
+            }
+        }
+    }
+
+    private int addNode(int node, int first, int index, int c) {
+        this.column[node] = c;
+        this.candidate[node] = index;
+
+        this.up[node] = this.up[c];
+        this.down[node] = c;
+        this.down[this.up[c]] = node;
+        this.up[c] = node;
+        this.columnSize[c]++;
+
+        this.left[node] = node == first ? node : node - 1;
+        this.right[node] = first;
+        this.right[this.left[node]] = node;
+        this.left[first] = node;
+
+        return node + 1;
+    }
+}
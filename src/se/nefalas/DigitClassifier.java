@@ -0,0 +1,358 @@
+package se.nefalas;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class DigitClassifier {
+
+    static final int UNKNOWN = -1;
+
+    private static final int SIZE = 16;
+    private static final int FEATURES = SIZE * SIZE;
+    private static final double ASPECT_WEIGHT = 0.3;
+    private static final int INK_THRESHOLD = 128;
+    private static final double LINE_RATIO = 0.9;
+    private static final double MIN_INK_RATIO = 0.01;
+    private static final double MAX_DISTANCE = 0.35;
+    private static final double MIN_MARGIN = 0.08;
+
+    private static final String TEMPLATES = "digit_templates.txt";
+
+    private final List<float[]> templates;
+    private final List<Integer> labels;
+
+    DigitClassifier() {
+        this.templates = new ArrayList<>();
+        this.labels = new ArrayList<>();
+    }
+
+    static DigitClassifier withBundledTemplates() {
+        DigitClassifier classifier = new DigitClassifier();
+
+        try (InputStream inputStream = DigitClassifier.class.getClassLoader().getResourceAsStream(TEMPLATES)) {
+            if (inputStream == null) {
+                throw new IOException("Missing resource " + TEMPLATES);
+            }
+
+            classifier.readTemplates(new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return classifier;
+    }
+
+    // Each template is a header line starting with its digit, then rows of '#' for ink and '.' for paper, then a blank line.
+    private void readTemplates(BufferedReader reader) throws IOException {
+        List<String> rows = new ArrayList<>();
+        int digit = 0;
+        String line;
+
+        do {
+            line = reader.readLine();
+
+            if (line == null || line.trim().isEmpty()) {
+                if (!rows.isEmpty()) {
+                    this.addTemplate(digit, rows);
+                    rows.clear();
+                }
+
+                digit = 0;
+            } else if (digit == 0) {
+                digit = Character.digit(line.charAt(0), 10);
+
+                if (digit < 1) {
+                    throw new IOException("Invalid digit template header: " + line);
+                }
+            } else {
+                rows.add(line);
+            }
+        } while (line != null);
+    }
+
+    private void addTemplate(int digit, List<String> rows) throws IOException {
+        int width = rows.get(0).length();
+        int height = rows.size();
+        boolean[] ink = new boolean[width * height];
+
+        for (int y = 0; y < height; y++) {
+            String row = rows.get(y);
+
+            if (row.length() != width) {
+                throw new IOException("Digit template rows for " + digit + " have different lengths");
+            }
+
+            for (int x = 0; x < width; x++) {
+                ink[y * width + x] = row.charAt(x) == '#';
+            }
+        }
+
+        this.templates.add(toFeatures(ink, width, 0, 0, width - 1, height - 1));
+        this.labels.add(digit);
+    }
+
+    int getTemplateCount() {
+        return this.templates.size();
+    }
+
+    int classify(BufferedImage image, Rectangle region) {
+        float[] features = extractFeatures(image.getRaster(), region);
+
+        // Only cells marked as used are classified, so one without digit-like ink is left to Tesseract.
+        if (features == null) {
+            return UNKNOWN;
+        }
+
+        double[] distances = new double[10];
+        Arrays.fill(distances, Double.MAX_VALUE);
+
+        for (int i = 0; i < this.templates.size(); i++) {
+            double distance = getDistance(features, this.templates.get(i));
+            int label = this.labels.get(i);
+
+            if (distance < distances[label]) {
+                distances[label] = distance;
+            }
+        }
+
+        int best = UNKNOWN;
+        double bestDistance = Double.MAX_VALUE;
+        double secondDistance = Double.MAX_VALUE;
+
+        for (int digit = 1; digit <= 9; digit++) {
+            if (distances[digit] < bestDistance) {
+                secondDistance = bestDistance;
+                bestDistance = distances[digit];
+                best = digit;
+            } else if (distances[digit] < secondDistance) {
+                secondDistance = distances[digit];
+            }
+        }
+
+        if (bestDistance > MAX_DISTANCE || secondDistance - bestDistance < MIN_MARGIN) {
+            return UNKNOWN;
+        }
+
+        return best;
+    }
+
+    static BufferedImage cropDigit(BufferedImage image, Rectangle region) {
+        Rectangle bounds = region.intersection(image.getRaster().getBounds());
+
+        if (bounds.isEmpty()) {
+            return null;
+        }
+
+        int width = bounds.width;
+        boolean[] ink = getInk(image.getRaster(), bounds);
+        int[] inkBounds = findDigitBounds(ink, width, bounds.height);
+
+        if (inkBounds == null) {
+            return null;
+        }
+
+        int minX = inkBounds[0], minY = inkBounds[1], maxX = inkBounds[2], maxY = inkBounds[3];
+        BufferedImage digit = new BufferedImage(maxX - minX + 1, maxY - minY + 1, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) digit.getRaster().getDataBuffer()).getData();
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                data[(y - minY) * digit.getWidth() + x - minX] = ink[y * width + x] ? 0 : (byte) 255;
+            }
+        }
+
+        return digit;
+    }
+
+    private static float[] extractFeatures(Raster raster, Rectangle region) {
+        Rectangle bounds = region.intersection(raster.getBounds());
+        int width = bounds.width;
+        int height = bounds.height;
+
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+
+        boolean[] ink = getInk(raster, bounds);
+        int[] inkBounds = findDigitBounds(ink, width, height);
+
+        if (inkBounds == null) {
+            return null;
+        }
+
+        return toFeatures(ink, width, inkBounds[0], inkBounds[1], inkBounds[2], inkBounds[3]);
+    }
+
+    private static float[] toFeatures(boolean[] ink, int width, int minX, int minY, int maxX, int maxY) {
+        int inkWidth = maxX - minX + 1;
+        int inkHeight = maxY - minY + 1;
+        double scale = (double) SIZE / Math.max(inkWidth, inkHeight);
+        double offsetX = (SIZE - inkWidth * scale) / 2.0;
+        double offsetY = (SIZE - inkHeight * scale) / 2.0;
+
+        float[] features = new float[FEATURES + 1];
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                if (!ink[y * width + x]) {
+                    continue;
+                }
+
+                int featureX = Math.min((int) (offsetX + (x - minX) * scale), SIZE - 1);
+                int featureY = Math.min((int) (offsetY + (y - minY) * scale), SIZE - 1);
+                features[featureY * SIZE + featureX]++;
+            }
+        }
+
+        blur(features);
+        normalize(features);
+        features[FEATURES] = (float) Math.log((double) inkWidth / inkHeight);
+
+        return features;
+    }
+
+    private static boolean[] getInk(Raster raster, Rectangle bounds) {
+        int[] pixels = raster.getSamples(bounds.x, bounds.y, bounds.width, bounds.height, 0, new int[bounds.width * bounds.height]);
+        boolean[] ink = new boolean[pixels.length];
+
+        for (int i = 0; i < pixels.length; i++) {
+            ink[i] = pixels[i] < INK_THRESHOLD;
+        }
+
+        return ink;
+    }
+
+    private static int[] findDigitBounds(boolean[] ink, int width, int height) {
+        boolean[] unvisited = ink.clone();
+        int[] stack = new int[ink.length];
+        int[] component = new int[ink.length];
+        int[] digitBounds = null;
+        int minInk = (int) Math.ceil(MIN_INK_RATIO * ink.length);
+
+        for (int start = 0; start < ink.length; start++) {
+            if (!unvisited[start]) {
+                continue;
+            }
+
+            int minX = width, minY = height, maxX = -1, maxY = -1;
+            int count = 0;
+            int size = 0;
+
+            stack[size++] = start;
+            unvisited[start] = false;
+
+            while (size > 0) {
+                int index = stack[--size];
+                int x = index % width;
+                int y = index / width;
+
+                component[count++] = index;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+
+                if (x > 0 && unvisited[index - 1]) {
+                    unvisited[index - 1] = false;
+                    stack[size++] = index - 1;
+                }
+                if (x < width - 1 && unvisited[index + 1]) {
+                    unvisited[index + 1] = false;
+                    stack[size++] = index + 1;
+                }
+                if (y > 0 && unvisited[index - width]) {
+                    unvisited[index - width] = false;
+                    stack[size++] = index - width;
+                }
+                if (y < height - 1 && unvisited[index + width]) {
+                    unvisited[index + width] = false;
+                    stack[size++] = index + width;
+                }
+            }
+
+            boolean isLine = maxX - minX + 1 >= LINE_RATIO * width || maxY - minY + 1 >= LINE_RATIO * height;
+
+            if (isLine || count < minInk) {
+                for (int i = 0; i < count; i++) {
+                    ink[component[i]] = false;
+                }
+
+                continue;
+            }
+
+            if (digitBounds == null) {
+                digitBounds = new int[]{minX, minY, maxX, maxY};
+            } else {
+                digitBounds[0] = Math.min(digitBounds[0], minX);
+                digitBounds[1] = Math.min(digitBounds[1], minY);
+                digitBounds[2] = Math.max(digitBounds[2], maxX);
+                digitBounds[3] = Math.max(digitBounds[3], maxY);
+            }
+        }
+
+        return digitBounds;
+    }
+
+    private static void blur(float[] features) {
+        float[] source = Arrays.copyOf(features, FEATURES);
+
+        for (int y = 0; y < SIZE; y++) {
+            for (int x = 0; x < SIZE; x++) {
+                float sum = 0;
+
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        int neighbourX = x + dx;
+                        int neighbourY = y + dy;
+
+                        if (neighbourX >= 0 && neighbourX < SIZE && neighbourY >= 0 && neighbourY < SIZE) {
+                            sum += source[neighbourY * SIZE + neighbourX] * (dx == 0 && dy == 0 ? 4 : 1);
+                        }
+                    }
+                }
+
+                features[y * SIZE + x] = sum;
+            }
+        }
+    }
+
+    private static void normalize(float[] features) {
+        double mean = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            mean += features[i];
+        }
+        mean /= FEATURES;
+
+        double norm = 0;
+        for (int i = 0; i < FEATURES; i++) {
+            features[i] -= mean;
+            norm += features[i] * features[i];
+        }
+
+        float inverse = norm == 0 ? 0 : (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < FEATURES; i++) {
+            features[i] *= inverse;
+        }
+    }
+
+    private static double getDistance(float[] first, float[] second) {
+        double dot = 0;
+
+        for (int i = 0; i < FEATURES; i++) {
+            dot += first[i] * second[i];
+        }
+
+        return 1.0 - dot + ASPECT_WEIGHT * Math.abs(first[FEATURES] - second[FEATURES]);
+    }
+}
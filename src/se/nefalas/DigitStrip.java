@@ -0,0 +1,112 @@
+package se.nefalas;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+class DigitStrip {
+
+    private final BufferedImage image;
+    private final int[] starts;
+    private final int[] ends;
+    private final int spacing;
+
+    private DigitStrip(BufferedImage image, int[] starts, int[] ends, int spacing) {
+        this.image = image;
+        this.starts = starts;
+        this.ends = ends;
+        this.spacing = spacing;
+    }
+
+    static DigitStrip compose(BufferedImage image, Rectangle[] regions) {
+        BufferedImage[] digits = new BufferedImage[regions.length];
+        int maxHeight = 1;
+        int totalWidth = 0;
+
+        for (int i = 0; i < regions.length; i++) {
+            digits[i] = DigitClassifier.cropDigit(image, regions[i]);
+
+            if (digits[i] != null) {
+                maxHeight = Math.max(maxHeight, digits[i].getHeight());
+                totalWidth += digits[i].getWidth();
+            }
+        }
+
+        // Gaps of about half a digit keep Tesseract from merging neighbours into one symbol.
+        int spacing = Math.max(maxHeight / 2, 4);
+        int width = totalWidth + spacing * (regions.length + 1);
+        int height = maxHeight + spacing * 2;
+
+        BufferedImage strip = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = strip.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, width, height);
+
+        int[] starts = new int[regions.length];
+        int[] ends = new int[regions.length];
+        int x = spacing;
+
+        for (int i = 0; i < regions.length; i++) {
+            starts[i] = x;
+
+            if (digits[i] != null) {
+                graphics.drawImage(digits[i], x, spacing + (maxHeight - digits[i].getHeight()) / 2, null);
+                x += digits[i].getWidth();
+            }
+
+            ends[i] = x;
+            x += spacing;
+        }
+
+        graphics.dispose();
+
+        return new DigitStrip(strip, starts, ends, spacing);
+    }
+
+    BufferedImage getImage() {
+        return this.image;
+    }
+
+    int[] read(List<TesseractPool.Symbol> symbols) {
+        int[] values = new int[this.starts.length];
+        int[] counts = new int[this.starts.length];
+
+        for (TesseractPool.Symbol symbol : symbols) {
+            int slot = this.getSlot(symbol.getBounds());
+            String text = symbol.getText().trim();
+
+            if (slot < 0) {
+                continue;
+            }
+
+            counts[slot]++;
+
+            if (text.length() == 1 && text.charAt(0) >= '1' && text.charAt(0) <= '9') {
+                values[slot] = text.charAt(0) - '0';
+            }
+        }
+
+        // Slots that got no symbol, or more than one, are left at zero so the caller reads them on their own.
+        for (int i = 0; i < values.length; i++) {
+            if (counts[i] != 1) {
+                values[i] = 0;
+            }
+        }
+
+        return values;
+    }
+
+    private int getSlot(Rectangle bounds) {
+        int center = bounds.x + bounds.width / 2;
+
+        for (int i = 0; i < this.starts.length; i++) {
+            if (center >= this.starts[i] - this.spacing / 2 && center < this.ends[i] + this.spacing / 2) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+}
@@ -7,6 +7,7 @@ import java.awt.event.ComponentEvent;
 import java.awt.image.BufferStrategy;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.TimeUnit;
 
 class GUI extends Canvas {
 
@@ -15,6 +16,8 @@ class GUI extends Canvas {
         SOLVE
     }
 
+    static final int FPS = 60;
+
     private Graphics2D g;
     private BufferStrategy strategy;
     private JFrame container;
@@ -29,14 +32,22 @@ class GUI extends Canvas {
 
     private Font numberFont = new Font("Lucida Blackletter", Font.PLAIN, 30);
 
-    private boolean isRunning = false;
+    private volatile boolean isRunning = false;
 
     private Sudoku[] sudokus;
+    private final UpdateChannel<Sudoku> updates;
+    private final Timer frameTimer;
 
     private STEP step;
 
     GUI() {
+        this(1000 / FPS, TimeUnit.MILLISECONDS);
+    }
+
+    GUI(long samplingInterval, TimeUnit unit) {
         this.sudokus = new Sudoku[9];
+        this.updates = new UpdateChannel<>(this.sudokus.length, samplingInterval, unit);
+        this.frameTimer = new Timer("GUI frames", true);
         this.step = STEP.READ;
 
         this.setupJFrame();
@@ -95,21 +106,21 @@ class GUI extends Canvas {
         }
 
         EventQueue.invokeLater(() -> {
-            long start = System.currentTimeMillis();
-            final int FPS = 60;
+            long start = System.nanoTime();
 
+            receiveUpdates();
             setup();
             draw();
             display();
 
-            long elapsed = System.currentTimeMillis() - start;
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
             int remaining = (int) ((1000 / FPS) - elapsed);
 
             if (remaining < 0) {
                 remaining = 0;
             }
 
-            new Timer().schedule(new TimerTask() {
+            frameTimer.schedule(new TimerTask() {
                 @Override
                 public void run() {
                     GUI.this.run();
@@ -119,7 +130,37 @@ class GUI extends Canvas {
     }
 
     void setSudoku(Sudoku sudoku, int index) {
-        EventQueue.invokeLater(() -> sudokus[index] = sudoku);
+        if (index < 0 || index >= this.updates.size()) {
+            return;
+        }
+
+        this.updates.publish(index, sudoku);
+    }
+
+    void sampleSudoku(Sudoku sudoku, int index) {
+        if (!this.isRunning || index < 0 || index >= this.updates.size()) {
+            return;
+        }
+
+        if (this.updates.isDue(index)) {
+            this.updates.publish(index, sudoku.copy());
+        }
+    }
+
+    void sampleValues(int[] values) {
+        if (this.isRunning && this.updates.isDue(0)) {
+            this.updates.publish(0, new Sudoku(values.clone()));
+        }
+    }
+
+    private void receiveUpdates() {
+        for (int i = 0; i < sudokus.length; i++) {
+            Sudoku sudoku = this.updates.poll(i);
+
+            if (sudoku != null) {
+                sudokus[i] = sudoku;
+            }
+        }
     }
 
     private void setup() {
@@ -200,16 +241,21 @@ class GUI extends Canvas {
         BasicStroke medium = new BasicStroke(2.5F);
         BasicStroke thin = new BasicStroke(1);
 
-        double unit = size / 9.0;
+        Geometry geometry = sudoku == null ? Geometry.STANDARD : sudoku.getGeometry();
+        Font font = geometry == Geometry.STANDARD
+                ? numberFont
+                : numberFont.deriveFont(numberFont.getSize2D() * Geometry.STANDARD.size / geometry.size);
+
+        double unit = size / (double) geometry.size;
         int right = left + size;
         int bottom = top + size;
 
-        for (int i = 0; i < 10; i++) {
+        for (int i = 0; i <= geometry.size; i++) {
             g.setColor(gridColor);
 
-            if (i == 0 || i == 9) {
+            if (i == 0 || i == geometry.size) {
                 g.setStroke(thick);
-            } else if (i % 3 == 0) {
+            } else if (i % geometry.boxSize == 0) {
                 g.setStroke(medium);
             } else {
                 g.setStroke(thin);
@@ -221,13 +267,13 @@ class GUI extends Canvas {
             g.drawLine(left, height, right, height);
             g.drawLine(width, top, width, bottom);
 
-            if (sudoku != null && i < 9) {
+            if (sudoku != null && i < geometry.size) {
                 int[] numbers = sudoku.getRow(i);
                 int y = top + (int) Math.round(i * unit);
 
                 g.setColor(TEXT_COLOR);
-                g.setFont(numberFont);
-                for (int col = 0; col < 9; col++) {
+                g.setFont(font);
+                for (int col = 0; col < geometry.size; col++) {
                     int number = numbers[col];
 
                     if (number == 0) {
@@ -237,14 +283,14 @@ class GUI extends Canvas {
                     int x = left + (int) Math.round(col * unit);
                     int unitInt = (int) Math.round(unit);
 
-                    this.drawCenteredString(x, y, unitInt, unitInt, Integer.toString(number));
+                    this.drawCenteredString(x, y, unitInt, unitInt, String.valueOf(Sudoku.valueToChar(number)));
                 }
             }
         }
     }
 
     private void drawCenteredString(int rectX, int rectY, int rectW, int rectH, String text) {
-        FontMetrics metrics = g.getFontMetrics(numberFont);
+        FontMetrics metrics = g.getFontMetrics();
         int x = rectX + (rectW - metrics.stringWidth(text)) / 2;
         int y = rectY + ((rectH - metrics.getHeight()) / 2) + metrics.getAscent();
 
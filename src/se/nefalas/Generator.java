@@ -0,0 +1,269 @@
+package se.nefalas;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class Generator {
+
+    enum SYMMETRY {
+        NONE,
+        ROTATIONAL,
+        MIRROR,
+        DIAGONAL
+    }
+
+    private static final int MAX_ATTEMPTS = 50;
+    private static final Geometry GEOMETRY = Geometry.STANDARD;
+
+    private final SYMMETRY symmetry;
+    private final int targetClues;
+
+    Generator(SYMMETRY symmetry, int targetClues) {
+        this.symmetry = symmetry;
+        this.targetClues = targetClues;
+    }
+
+    List<Sudoku> generate(int count, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return pool.submit(() -> IntStream.range(0, count)
+                    .parallel()
+                    .mapToObj(i -> this.generate(ThreadLocalRandom.current()))
+                    .collect(Collectors.toList())
+            ).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    void generate(int count, int parallelism, String outputPath) {
+        long start = System.nanoTime();
+
+        List<Sudoku> puzzles = this.generate(count, parallelism);
+
+        try {
+            if (PackedPuzzleWriter.isPackedPath(outputPath)) {
+                writePacked(puzzles, outputPath);
+            } else {
+                writeText(puzzles, outputPath);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        String message = String.format(
+                "Generated %d puzzles in %.4f seconds (%.1f puzzles per second)",
+                count,
+                elapsedSeconds,
+                count / elapsedSeconds
+        );
+
+        PrintStream report = outputPath == null ? System.err : System.out;
+        report.println(message);
+    }
+
+    private static void writeText(List<Sudoku> puzzles, String outputPath) throws IOException {
+        OutputStream outputStream = outputPath == null ? System.out : new FileOutputStream(outputPath);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.US_ASCII), 1 << 16);
+
+        for (Sudoku puzzle : puzzles) {
+            writer.write(puzzle.toString());
+            writer.write('\n');
+        }
+
+        if (outputPath == null) {
+            writer.flush();
+        } else {
+            writer.close();
+        }
+    }
+
+    private static void writePacked(List<Sudoku> puzzles, String outputPath) throws IOException {
+        OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(outputPath), 1 << 16);
+
+        try (PackedPuzzleWriter writer = new PackedPuzzleWriter(outputStream, GEOMETRY)) {
+            for (Sudoku puzzle : puzzles) {
+                writer.write(puzzle);
+            }
+        }
+    }
+
+    Sudoku generate(Random random) {
+        Sudoku best = null;
+        int bestClues = Integer.MAX_VALUE;
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS && bestClues > this.targetClues; attempt++) {
+            Sudoku puzzle = this.removeClues(createFullGrid(random), random);
+            int clues = countClues(puzzle);
+
+            if (clues < bestClues) {
+                best = puzzle;
+                bestClues = clues;
+            }
+        }
+
+        return best;
+    }
+
+    private Sudoku removeClues(Sudoku solution, Random random) {
+        int[] order = shuffledCells(random);
+        int[] values = new int[GEOMETRY.cells];
+        int clues = GEOMETRY.cells;
+
+        for (int i = 0; i < GEOMETRY.cells; i++) {
+            values[i] = solution.getValue(i);
+        }
+
+        Sudoku puzzle = new Sudoku(values);
+
+        for (int cell : order) {
+            if (clues <= this.targetClues) {
+                break;
+            }
+
+            int partner = this.getPartner(cell);
+
+            if (puzzle.getValue(cell) == 0 || puzzle.getValue(partner) == 0) {
+                continue;
+            }
+
+            int removed = cell == partner ? 1 : 2;
+
+            if (clues - removed < this.targetClues) {
+                continue;
+            }
+
+            puzzle.setValue(cell, 0);
+            puzzle.setValue(partner, 0);
+
+            if (SolutionCounter.hasUniqueSolution(puzzle)) {
+                clues -= removed;
+            } else {
+                puzzle.setValue(cell, solution.getValue(cell));
+                puzzle.setValue(partner, solution.getValue(partner));
+            }
+        }
+
+        return puzzle;
+    }
+
+    private int getPartner(int cell) {
+        int row = GEOMETRY.rowOf[cell];
+        int column = GEOMETRY.columnOf[cell];
+        int last = GEOMETRY.size - 1;
+
+        switch (this.symmetry) {
+            case ROTATIONAL:
+                return GEOMETRY.cells - 1 - cell;
+            case MIRROR:
+                return row * GEOMETRY.size + (last - column);
+            case DIAGONAL:
+                return column * GEOMETRY.size + row;
+            case NONE:
+            default:
+                return cell;
+        }
+    }
+
+    private static Sudoku createFullGrid(Random random) {
+        int[] values = new int[GEOMETRY.cells];
+
+        for (int block = 0; block < GEOMETRY.size; block += 4) {
+            int[] digits = shuffledDigits(random);
+            int startRow = (block / 3) * 3;
+            int startColumn = (block % 3) * 3;
+
+            for (int i = 0; i < GEOMETRY.size; i++) {
+                values[(startRow + i / 3) * GEOMETRY.size + startColumn + i % 3] = digits[i];
+            }
+        }
+
+        Sudoku seeded = new DancingLinks().solve(new Sudoku(values));
+
+        return permute(seeded, random);
+    }
+
+    private static Sudoku permute(Sudoku sudoku, Random random) {
+        int[] rows = shuffledLines(random);
+        int[] columns = shuffledLines(random);
+        int[] digits = shuffledDigits(random);
+        boolean transpose = random.nextBoolean();
+
+        int[] values = new int[GEOMETRY.cells];
+
+        for (int row = 0; row < GEOMETRY.size; row++) {
+            for (int column = 0; column < GEOMETRY.size; column++) {
+                int sourceRow = transpose ? columns[column] : rows[row];
+                int sourceColumn = transpose ? rows[row] : columns[column];
+                int value = sudoku.getValue(sourceRow, sourceColumn);
+
+                values[row * GEOMETRY.size + column] = digits[value - 1];
+            }
+        }
+
+        return new Sudoku(values);
+    }
+
+    private static int[] shuffledLines(Random random) {
+        int[] bands = shuffle(new int[]{0, 1, 2}, random);
+        int[] lines = new int[GEOMETRY.size];
+
+        for (int band = 0; band < 3; band++) {
+            int[] offsets = shuffle(new int[]{0, 1, 2}, random);
+
+            for (int i = 0; i < 3; i++) {
+                lines[band * 3 + i] = bands[band] * 3 + offsets[i];
+            }
+        }
+
+        return lines;
+    }
+
+    private static int[] shuffledDigits(Random random) {
+        return shuffle(new int[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, random);
+    }
+
+    private static int[] shuffledCells(Random random) {
+        int[] cells = new int[GEOMETRY.cells];
+
+        for (int i = 0; i < GEOMETRY.cells; i++) {
+            cells[i] = i;
+        }
+
+        return shuffle(cells, random);
+    }
+
+    private static int[] shuffle(int[] array, Random random) {
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+
+        return array;
+    }
+
+    private static int countClues(Sudoku sudoku) {
+        int count = 0;
+
+        for (int i = 0; i < GEOMETRY.cells; i++) {
+            if (sudoku.getValue(i) != 0) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+}
@@ -0,0 +1,94 @@
+package se.nefalas;
+
+class Geometry {
+
+    static final int MIN_BOX_SIZE = 2;
+    static final int MAX_BOX_SIZE = 5;
+
+    private static final Geometry[] GEOMETRIES = new Geometry[MAX_BOX_SIZE + 1];
+
+    static final Geometry STANDARD = of(3);
+
+    final int boxSize;
+    final int size;
+    final int cells;
+    final int houseCount;
+    final int allValues;
+
+    final int[] rowOf;
+    final int[] columnOf;
+    final int[] blockOf;
+    final int[][] peers;
+    final int[][] houses;
+    final int[][] housesOf;
+
+    private Geometry(int boxSize) {
+        this.boxSize = boxSize;
+        this.size = boxSize * boxSize;
+        this.cells = this.size * this.size;
+        this.houseCount = 3 * this.size;
+        this.allValues = (1 << this.size) - 1;
+
+        this.rowOf = new int[this.cells];
+        this.columnOf = new int[this.cells];
+        this.blockOf = new int[this.cells];
+        this.peers = new int[this.cells][3 * this.size - 2 * boxSize - 1];
+        this.houses = new int[this.houseCount][this.size];
+        this.housesOf = new int[this.cells][3];
+
+        for (int i = 0; i < this.cells; i++) {
+            this.rowOf[i] = i / this.size;
+            this.columnOf[i] = i % this.size;
+            this.blockOf[i] = (this.rowOf[i] / boxSize) * boxSize + this.columnOf[i] / boxSize;
+        }
+
+        int[] houseSizes = new int[this.houseCount];
+        for (int i = 0; i < this.cells; i++) {
+            this.housesOf[i][0] = this.rowOf[i];
+            this.housesOf[i][1] = this.size + this.columnOf[i];
+            this.housesOf[i][2] = 2 * this.size + this.blockOf[i];
+
+            for (int house : this.housesOf[i]) {
+                this.houses[house][houseSizes[house]++] = i;
+            }
+        }
+
+        for (int i = 0; i < this.cells; i++) {
+            int count = 0;
+
+            for (int j = 0; j < this.cells; j++) {
+                if (i != j && (this.rowOf[i] == this.rowOf[j]
+                        || this.columnOf[i] == this.columnOf[j]
+                        || this.blockOf[i] == this.blockOf[j])) {
+                    this.peers[i][count++] = j;
+                }
+            }
+        }
+    }
+
+    static synchronized Geometry of(int boxSize) {
+        if (boxSize < MIN_BOX_SIZE || boxSize > MAX_BOX_SIZE) {
+            throw new IllegalArgumentException("Box size must be between " + MIN_BOX_SIZE + " and " + MAX_BOX_SIZE);
+        }
+
+        if (GEOMETRIES[boxSize] == null) {
+            GEOMETRIES[boxSize] = new Geometry(boxSize);
+        }
+
+        return GEOMETRIES[boxSize];
+    }
+
+    static Geometry forCells(int cells) {
+        for (int boxSize = MIN_BOX_SIZE; boxSize <= MAX_BOX_SIZE; boxSize++) {
+            if (boxSize * boxSize * boxSize * boxSize == cells) {
+                return of(boxSize);
+            }
+        }
+
+        throw new IllegalArgumentException("Unsupported number of cells: " + cells);
+    }
+
+    int getIndex(int row, int column) {
+        return this.size * row + column;
+    }
+}
@@ -0,0 +1,82 @@
+package se.nefalas;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts;
+    private final LongAdder total;
+    private final LongAccumulator max;
+
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+        this.total = new LongAdder();
+        this.max = new LongAccumulator(Math::max, 0);
+    }
+
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+
+        this.counts.incrementAndGet(getBucket(nanos));
+        this.total.increment();
+        this.max.accumulate(nanos);
+    }
+
+    long getCount() {
+        return this.total.sum();
+    }
+
+    long getMax() {
+        return this.max.get();
+    }
+
+    long getPercentile(double percentile) {
+        long[] counts = this.getCounts();
+        long total = 0;
+
+        for (long count : counts) {
+            total += count;
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+
+            if (seen >= rank) {
+                return Math.min(getUpperBound(bucket), this.getMax());
+            }
+        }
+
+        return this.getMax();
+    }
+
+    long[] getCounts() {
+        long[] counts = new long[BUCKETS];
+
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts[bucket] = this.counts.get(bucket);
+        }
+
+        return counts;
+    }
+
+    private static int getBucket(long nanos) {
+        return Math.min(BUCKETS - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+
+    private static long getUpperBound(int bucket) {
+        return bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
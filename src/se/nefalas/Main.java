@@ -4,6 +4,7 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.cli.*;
 
@@ -13,6 +14,7 @@ public class Main {
 
     private static Options options;
     private static GUI gui;
+    private static boolean isDebug;
 
     public static void main(String[] args) {
         CommandLine cmd = parseArgs(args);
@@ -20,10 +22,46 @@ public class Main {
             return;
         }
 
+        boolean isHeadless = cmd.hasOption("x");
+
+        if (isHeadless) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        if (cmd.hasOption("b")) {
+            BatchSolver batchSolver = new BatchSolver(Computer.ENGINE.DANCING_LINKS, Runtime.getRuntime().availableProcessors());
+
+            if (cmd.hasOption("k")) {
+                batchSolver.setCache(new SolveCache(Integer.parseInt(cmd.getOptionValue("k"))));
+            }
+
+            if (cmd.hasOption("l")) {
+                batchSolver.setLatencyBudget(Long.parseLong(cmd.getOptionValue("l")), TimeUnit.MILLISECONDS);
+            }
+
+            batchSolver.solve(cmd.getOptionValue("b"), cmd.getOptionValue("o"));
+
+            return;
+        }
+
+        if (cmd.hasOption("g")) {
+            int count = Integer.parseInt(cmd.getOptionValue("g"));
+            int clues = Integer.parseInt(cmd.getOptionValue("c", "26"));
+            Generator.SYMMETRY symmetry = Generator.SYMMETRY.valueOf(cmd.getOptionValue("y", "NONE").toUpperCase());
+
+            Generator generator = new Generator(symmetry, clues);
+            generator.generate(count, Runtime.getRuntime().availableProcessors(), cmd.getOptionValue("o"));
+
+            return;
+        }
+
         String imgPath = null;
         BufferedImage bufferedImage = null;
+        Sudoku sudoku = null;
 
-        if (cmd.hasOption("i")) {
+        if (cmd.hasOption("s")) {
+            sudoku = new Sudoku(cmd.getOptionValue("s"));
+        } else if (cmd.hasOption("i")) {
             imgPath = cmd.getOptionValue("i");
         } else if (cmd.hasOption("e")) {
             String filename;
@@ -47,34 +85,95 @@ public class Main {
             }
 
         } else {
-            printHelp("You need to select either an image or an example");
+            printHelp("You need to select either a sudoku string, an image or an example");
+
+            return;
+        }
+
+        isDebug = cmd.hasOption("db");
+        SudokuReader.OCR_MODE ocrMode = SudokuReader.OCR_MODE.valueOf(cmd.getOptionValue("m", "STRIP").toUpperCase());
+
+        if (isHeadless) {
+            runHeadless(sudoku, imgPath, bufferedImage, isDebug, ocrMode);
 
             return;
         }
 
-        boolean isDebug = cmd.hasOption("db");
+        long updateInterval = Long.parseLong(cmd.getOptionValue("u", String.valueOf(1000 / GUI.FPS)));
 
-        gui = new GUI();
+        gui = new GUI(updateInterval, TimeUnit.MILLISECONDS);
         gui.init();
         gui.start();
         gui.setStep(GUI.STEP.READ);
 
-        SudokuReader sudokuReader = new SudokuReader(Main::onReadUpdate);
-        sudokuReader.setDebug(isDebug);
+        if (sudoku == null) {
+            try (SudokuReader sudokuReader = new SudokuReader(gui::sampleValues)) {
+                sudokuReader.setDebug(isDebug);
+                sudokuReader.setOCRMode(ocrMode);
 
-        Sudoku sudoku = imgPath == null
-                ? sudokuReader.readSudoku(bufferedImage)
-                : sudokuReader.readSudoku(new File(imgPath).getAbsolutePath());
-        sudoku.print(true);
+                sudoku = imgPath == null
+                        ? sudokuReader.readSudoku(bufferedImage)
+                        : sudokuReader.readSudoku(new File(imgPath).getAbsolutePath());
+            }
 
-        //Sudoku sudoku = new Sudoku("980700600750000090006000000070040300008900050000002700010007004005800970000400060");
+            if (sudoku == null) {
+                System.err.println("Could not read sudoku");
+                System.exit(1);
+            }
+        }
+        sudoku.print(true);
+        gui.setSudoku(sudoku.copy(), 0);
 
         gui.setStep(GUI.STEP.SOLVE);
 
-        Computer computer = new Computer(gui::setSudoku, Main::onSolve);
+        Computer computer = new Computer(gui::sampleSudoku, Main::onSolve);
+        computer.getMetrics().register("interactive");
         computer.solve(sudoku);
     }
 
+    private static void runHeadless(Sudoku sudoku, String imgPath, BufferedImage bufferedImage, boolean isDebug, SudokuReader.OCR_MODE ocrMode) {
+        if (sudoku == null) {
+            if (isDebug) {
+                System.err.println("Debug images are not shown in headless mode");
+            }
+
+            try (SudokuReader sudokuReader = new SudokuReader(values -> {})) {
+                sudokuReader.setOCRMode(ocrMode);
+
+                sudoku = imgPath == null
+                        ? sudokuReader.readSudoku(bufferedImage)
+                        : sudokuReader.readSudoku(new File(imgPath).getAbsolutePath());
+            }
+
+            if (sudoku == null) {
+                System.err.println("Could not read sudoku");
+                System.exit(1);
+            }
+        }
+
+        StringBuilder output = new StringBuilder(sudoku.toGridString()).append(System.lineSeparator());
+
+        Computer computer = new Computer((solving, index) -> {}, (solved, index, stats) -> {});
+        long start = System.nanoTime();
+        Sudoku solved = computer.solve(sudoku).join();
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        if (solved == null) {
+            output.append("No solution").append(System.lineSeparator());
+        } else {
+            output.append(solved.toGridString()).append(System.lineSeparator());
+        }
+
+        output.append(String.format("Took %.4f seconds to solve", elapsedSeconds)).append(System.lineSeparator());
+
+        System.out.print(output);
+        System.out.flush();
+
+        if (solved == null) {
+            System.exit(1);
+        }
+    }
+
     private static CommandLine parseArgs(String[] args) {
         options = new Options();
 
@@ -82,6 +181,34 @@ public class Main {
         sudokuString.setRequired(false);
         options.addOption(sudokuString);
 
+        Option batchPath = new Option("b", "batch", true, "solve a file of puzzle strings, one per line (- for stdin)");
+        batchPath.setRequired(false);
+        options.addOption(batchPath);
+
+        Option cacheSize = new Option("k", "cache", true, "cache batch solutions up to symmetry, keeping at most the given number of puzzles");
+        cacheSize.setRequired(false);
+        options.addOption(cacheSize);
+
+        Option latencyBudget = new Option("l", "latency-budget", true, "log batch puzzles that take longer than the given number of milliseconds");
+        latencyBudget.setRequired(false);
+        options.addOption(latencyBudget);
+
+        Option generateCount = new Option("g", "generate", true, "generate the given number of puzzles");
+        generateCount.setRequired(false);
+        options.addOption(generateCount);
+
+        Option clues = new Option("c", "clues", true, "target clue count for generated puzzles (defaults to 26)");
+        clues.setRequired(false);
+        options.addOption(clues);
+
+        Option symmetry = new Option("y", "symmetry", true, "symmetry of generated puzzles (none, rotational, mirror or diagonal)");
+        symmetry.setRequired(false);
+        options.addOption(symmetry);
+
+        Option outputPath = new Option("o", "output", true, "batch or generator output file (defaults to stdout, generated puzzles are packed if it ends with .sdkp)");
+        outputPath.setRequired(false);
+        options.addOption(outputPath);
+
         Option imagePath = new Option("i", "image", true, "input image path");
         imagePath.setRequired(false);
         options.addOption(imagePath);
@@ -90,6 +217,18 @@ public class Main {
 //        directoryPath.setRequired(false);
 //        options.addOption(directoryPath);
 
+        Option updateInterval = new Option("u", "update-interval", true, "milliseconds between visualized solver and reader updates (defaults to one frame, 0 shows every update)");
+        updateInterval.setRequired(false);
+        options.addOption(updateInterval);
+
+        Option ocrMode = new Option("m", "ocr-mode", true, "read unrecognized digits one cell at a time or all at once in a single strip (cells or strip, defaults to strip)");
+        ocrMode.setRequired(false);
+        options.addOption(ocrMode);
+
+        Option headless = new Option("x", "headless", false, "read and solve without opening a window, print the result and exit");
+        headless.setRequired(false);
+        options.addOption(headless);
+
         Option debug = new Option("db", "debug", false, "debug mode");
         debug.setRequired(false);
         options.addOption(debug);
@@ -129,18 +268,15 @@ public class Main {
         System.exit(1);
     }
 
-    private static void onReadUpdate(int[] values) {
-        Sudoku sudoku = new Sudoku(values);
-
-        gui.setSudoku(sudoku, 0);
-    }
-
-    private static void onSolve(Sudoku sudoku, int sudokuIndex, long start) {
-        long elapsed = System.currentTimeMillis() - start;
-        double elapsedSeconds = (double) elapsed / 1000.0;
+    private static void onSolve(Sudoku sudoku, int sudokuIndex, SolveStats stats) {
+        double elapsedSeconds = stats.getElapsedNanos() / 1e9;
         String message = String.format("Took %.4f seconds to solve", elapsedSeconds);
         System.out.println(message);
 
+        if (isDebug) {
+            System.out.println("solve " + stats);
+        }
+
         gui.stop();
 
         gui.setSudoku(sudoku, sudokuIndex);
@@ -0,0 +1,168 @@
+package se.nefalas;
+
+import nu.pattern.OpenCV;
+import org.opencv.core.Core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+class NativeLibraries {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String STAMP_EXTENSION = ".stamp";
+    private static final String TESSDATA = "tessdata/eng.traineddata";
+
+    private static boolean isOpenCVLoaded;
+    private static Path tessdataPath;
+
+    static synchronized void loadOpenCV() {
+        if (isOpenCVLoaded) {
+            return;
+        }
+
+        try {
+            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
+        } catch (UnsatisfiedLinkError e) {
+            OpenCV.loadLocally();
+        }
+
+        isOpenCVLoaded = true;
+    }
+
+    static synchronized String getTessdataPath() {
+        if (tessdataPath == null) {
+            tessdataPath = extract(TESSDATA).getParent();
+        }
+
+        return tessdataPath.toAbsolutePath().toString();
+    }
+
+    static Path getCacheDirectory() {
+        String directory = System.getProperty("sudoku.cache.dir");
+
+        if (directory != null) {
+            return Paths.get(directory);
+        }
+
+        return Paths.get(System.getProperty("user.home"), ".cache", "sudoku-solver");
+    }
+
+    private static Path extract(String resource) {
+        try {
+            URL url = NativeLibraries.class.getClassLoader().getResource(resource);
+
+            if (url == null) {
+                throw new IOException("Missing resource " + resource);
+            }
+
+            // The size and CRC stored in the jar identify the artifact without reading it, so a cached start costs
+            // a directory lookup instead of hashing the whole file.
+            Stamp stamp = Stamp.of(url);
+            String name = Paths.get(resource).getFileName().toString();
+
+            Path directory = getCacheDirectory().resolve(stamp.toString());
+            Path target = directory.resolve(name);
+            Path stampFile = directory.resolve(name + STAMP_EXTENSION);
+
+            if (Files.isRegularFile(target) && Files.size(target) == stamp.size && Files.isRegularFile(stampFile)) {
+                return target;
+            }
+
+            Files.createDirectories(directory);
+
+            Path temporary = Files.createTempFile(directory, name, ".tmp");
+
+            try {
+                CRC32 crc = new CRC32();
+                long written;
+
+                try (InputStream inputStream = new CheckedInputStream(url.openStream(), crc);
+                     OutputStream outputStream = Files.newOutputStream(temporary)) {
+                    written = copy(inputStream, outputStream);
+                }
+
+                if (written != stamp.size || (stamp.crc >= 0 && crc.getValue() != stamp.crc)) {
+                    throw new IOException("Corrupt extraction of " + resource);
+                }
+
+                move(temporary, target);
+                Files.write(stampFile, (stamp + "\n").getBytes(StandardCharsets.US_ASCII));
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+
+            return target;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long copy(InputStream inputStream, OutputStream outputStream) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int length;
+
+        while ((length = inputStream.read(buffer)) > 0) {
+            outputStream.write(buffer, 0, length);
+            total += length;
+        }
+
+        return total;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static class Stamp {
+        private final long size;
+        private final long crc;
+        private final long modified;
+
+        Stamp(long size, long crc, long modified) {
+            this.size = size;
+            this.crc = crc;
+            this.modified = modified;
+        }
+
+        static Stamp of(URL url) throws IOException {
+            URLConnection connection = url.openConnection();
+
+            if (connection instanceof JarURLConnection) {
+                JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+
+                if (entry.getSize() >= 0 && entry.getCrc() >= 0) {
+                    return new Stamp(entry.getSize(), entry.getCrc(), 0);
+                }
+            }
+
+            // Resources outside a jar, such as an exploded build directory, are told apart by modification time.
+            return new Stamp(connection.getContentLengthLong(), -1, connection.getLastModified());
+        }
+
+        @Override
+        public String toString() {
+            return this.crc >= 0
+                    ? String.format("%x-%08x", this.size, this.crc)
+                    : String.format("%x-t%x", this.size, this.modified);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package se.nefalas;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class PackedPuzzleReader implements Closeable {
+
+    private final InputStream inputStream;
+    private final Geometry geometry;
+    private final byte[] record;
+
+    PackedPuzzleReader(InputStream inputStream) throws IOException {
+        byte[] header = new byte[PackedPuzzleWriter.HEADER_LENGTH];
+
+        if (readFully(inputStream, header) != header.length) {
+            throw new IOException("Not a packed puzzle file");
+        }
+
+        this.inputStream = inputStream;
+        this.geometry = readHeader(header);
+        this.record = new byte[PackedPuzzleWriter.getRecordLength(this.geometry)];
+    }
+
+    Geometry getGeometry() {
+        return this.geometry;
+    }
+
+    int[] read() throws IOException {
+        int read = readFully(this.inputStream, this.record);
+
+        if (read == 0) {
+            return null;
+        }
+
+        if (read != this.record.length) {
+            throw new EOFException("Truncated packed puzzle");
+        }
+
+        return decode(this.geometry, this.record, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.inputStream.close();
+    }
+
+    static boolean isPacked(BufferedInputStream inputStream) throws IOException {
+        byte[] magic = new byte[PackedPuzzleWriter.MAGIC.length];
+
+        inputStream.mark(magic.length);
+        int read = readFully(inputStream, magic);
+        inputStream.reset();
+
+        return read == magic.length && hasMagic(magic);
+    }
+
+    static int[] decode(Geometry geometry, byte[] buffer, int offset) {
+        return decode(geometry, ByteBuffer.wrap(buffer), offset);
+    }
+
+    static int[] decode(Geometry geometry, ByteBuffer buffer, int offset) {
+        int bitsPerCell = PackedPuzzleWriter.getBitsPerCell(geometry);
+        int cellMask = (1 << bitsPerCell) - 1;
+        int[] values = new int[geometry.cells];
+        int bits = 0;
+        int pending = 0;
+
+        for (int i = 0; i < geometry.cells; i++) {
+            if (pending < bitsPerCell) {
+                bits = (bits << 8) | (buffer.get(offset++) & 0xFF);
+                pending += 8;
+            }
+
+            pending -= bitsPerCell;
+            int value = (bits >>> pending) & cellMask;
+
+            if (value > geometry.size) {
+                throw new IllegalArgumentException("Cell value out of range: " + value);
+            }
+
+            values[i] = value;
+            bits &= (1 << pending) - 1;
+        }
+
+        return values;
+    }
+
+    static Geometry readHeader(ByteBuffer buffer) throws IOException {
+        byte[] header = new byte[PackedPuzzleWriter.HEADER_LENGTH];
+
+        if (buffer.remaining() < header.length) {
+            throw new IOException("Not a packed puzzle file");
+        }
+
+        buffer.duplicate().get(header);
+
+        return readHeader(header);
+    }
+
+    private static Geometry readHeader(byte[] header) throws IOException {
+        if (!hasMagic(header)) {
+            throw new IOException("Not a packed puzzle file");
+        }
+
+        int version = header[PackedPuzzleWriter.MAGIC.length];
+        if (version != PackedPuzzleWriter.VERSION) {
+            throw new IOException("Unsupported packed puzzle version: " + version);
+        }
+
+        return Geometry.of(header[PackedPuzzleWriter.MAGIC.length + 1]);
+    }
+
+    static boolean hasMagic(byte[] header) {
+        return Arrays.equals(Arrays.copyOf(header, PackedPuzzleWriter.MAGIC.length), PackedPuzzleWriter.MAGIC);
+    }
+
+    private static int readFully(InputStream inputStream, byte[] buffer) throws IOException {
+        int total = 0;
+
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+
+            if (read < 0) {
+                break;
+            }
+
+            total += read;
+        }
+
+        return total;
+    }
+}
@@ -0,0 +1,81 @@
+package se.nefalas;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+class PackedPuzzleWriter implements Closeable, Flushable {
+
+    static final String EXTENSION = ".sdkp";
+    static final byte[] MAGIC = {'S', 'D', 'K', 'P'};
+    static final int VERSION = 1;
+    static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    private final OutputStream outputStream;
+    private final Geometry geometry;
+    private final byte[] record;
+
+    PackedPuzzleWriter(OutputStream outputStream, Geometry geometry) throws IOException {
+        this.outputStream = outputStream;
+        this.geometry = geometry;
+        this.record = new byte[getRecordLength(geometry)];
+
+        outputStream.write(MAGIC);
+        outputStream.write(VERSION);
+        outputStream.write(geometry.boxSize);
+    }
+
+    void write(Sudoku sudoku) throws IOException {
+        if (sudoku.getGeometry() != this.geometry) {
+            throw new IllegalArgumentException("Expected a " + this.geometry.size + "x" + this.geometry.size + " puzzle");
+        }
+
+        encode(sudoku, this.record, 0);
+        this.outputStream.write(this.record);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.outputStream.close();
+    }
+
+    static boolean isPackedPath(String path) {
+        return path != null && path.endsWith(EXTENSION);
+    }
+
+    static int getBitsPerCell(Geometry geometry) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(geometry.size);
+    }
+
+    static int getRecordLength(Geometry geometry) {
+        return (geometry.cells * getBitsPerCell(geometry) + 7) / 8;
+    }
+
+    static void encode(Sudoku sudoku, byte[] buffer, int offset) {
+        Geometry geometry = sudoku.getGeometry();
+        int bitsPerCell = getBitsPerCell(geometry);
+        int bits = 0;
+        int pending = 0;
+
+        for (int i = 0; i < geometry.cells; i++) {
+            bits = (bits << bitsPerCell) | sudoku.getValue(i);
+            pending += bitsPerCell;
+
+            if (pending >= 8) {
+                pending -= 8;
+                buffer[offset++] = (byte) (bits >>> pending);
+                bits &= (1 << pending) - 1;
+            }
+        }
+
+        if (pending > 0) {
+            buffer[offset] = (byte) (bits << (8 - pending));
+        }
+    }
+}
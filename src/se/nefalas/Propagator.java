@@ -0,0 +1,499 @@
+package se.nefalas;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+
+class Propagator {
+
+    enum DIFFICULTY {
+        EASY,
+        MEDIUM,
+        HARD,
+        EXPERT
+    }
+
+    enum TECHNIQUE {
+        NAKED_SINGLE(DIFFICULTY.EASY),
+        HIDDEN_SINGLE(DIFFICULTY.EASY),
+        POINTING(DIFFICULTY.MEDIUM),
+        CLAIMING(DIFFICULTY.MEDIUM),
+        NAKED_PAIR(DIFFICULTY.MEDIUM),
+        HIDDEN_PAIR(DIFFICULTY.MEDIUM),
+        NAKED_TRIPLE(DIFFICULTY.HARD),
+        HIDDEN_TRIPLE(DIFFICULTY.HARD),
+        BACKTRACKING(DIFFICULTY.EXPERT);
+
+        private final DIFFICULTY difficulty;
+
+        TECHNIQUE(DIFFICULTY difficulty) {
+            this.difficulty = difficulty;
+        }
+
+        DIFFICULTY getDifficulty() {
+            return this.difficulty;
+        }
+    }
+
+    static final EnumSet<TECHNIQUE> SINGLES = EnumSet.of(TECHNIQUE.NAKED_SINGLE, TECHNIQUE.HIDDEN_SINGLE);
+    static final EnumSet<TECHNIQUE> ALL_TECHNIQUES = EnumSet.range(TECHNIQUE.NAKED_SINGLE, TECHNIQUE.HIDDEN_TRIPLE);
+
+    private static final ThreadLocal<WorkQueue> QUEUES = ThreadLocal.withInitial(WorkQueue::new);
+
+    private final boolean useHiddenSingles;
+    private final TECHNIQUE[] techniques;
+
+    Propagator(EnumSet<TECHNIQUE> techniques) {
+        EnumSet<TECHNIQUE> enabled = EnumSet.copyOf(techniques);
+        enabled.remove(TECHNIQUE.NAKED_SINGLE);
+        enabled.remove(TECHNIQUE.BACKTRACKING);
+
+        this.useHiddenSingles = enabled.remove(TECHNIQUE.HIDDEN_SINGLE);
+        this.techniques = enabled.toArray(new TECHNIQUE[0]);
+    }
+
+    void propagate(Sudoku sudoku) {
+        Geometry geometry = sudoku.getGeometry();
+        WorkQueue queue = QUEUES.get();
+        queue.clear();
+
+        for (int i = 0; i < geometry.cells; i++) {
+            if (sudoku.getValue(i) != 0 && !sudoku.isEmptyAtIndex(i)) {
+                queue.push(i);
+            }
+        }
+
+        for (int i = 0; i < geometry.cells; i++) {
+            if (sudoku.getValue(i) == 0 && sudoku.getCandidateCount(i) == 1) {
+                queue.push(i);
+            }
+        }
+
+        for (int house = 0; house < geometry.houseCount; house++) {
+            queue.markDirty(house);
+        }
+
+        this.run(sudoku, queue);
+    }
+
+    void propagate(Sudoku sudoku, int changedIndex) {
+        WorkQueue queue = QUEUES.get();
+        queue.clear();
+        queue.push(changedIndex);
+
+        this.run(sudoku, queue);
+    }
+
+    private void run(Sudoku sudoku, WorkQueue queue) {
+        do {
+            do {
+                this.drain(sudoku, queue);
+            } while (this.useHiddenSingles && applyHiddenSingles(sudoku, queue));
+        } while (!sudoku.isFull() && this.applyTechniques(sudoku, queue));
+    }
+
+    private void drain(Sudoku sudoku, WorkQueue queue) {
+        while (!queue.isEmpty()) {
+            int cell = queue.pop();
+            int value = sudoku.getValue(cell);
+
+            if (value == 0) {
+                if (sudoku.getCandidateCount(cell) != 1) {
+                    continue;
+                }
+
+                value = Sudoku.lowestValue(sudoku.getCandidates(cell));
+                sudoku.setValue(cell, value);
+                sudoku.addTechnique(TECHNIQUE.NAKED_SINGLE);
+            } else if (sudoku.isEmptyAtIndex(cell)) {
+                continue;
+            }
+
+            assign(sudoku, queue, cell, value);
+        }
+    }
+
+    private boolean applyTechniques(Sudoku sudoku, WorkQueue queue) {
+        for (TECHNIQUE technique : this.techniques) {
+            if (apply(sudoku, queue, technique)) {
+                sudoku.addTechnique(technique);
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static void assign(Sudoku sudoku, WorkQueue queue, int cell, int value) {
+        Geometry geometry = sudoku.getGeometry();
+        int bit = 1 << (value - 1);
+
+        for (int peer : geometry.peers[cell]) {
+            if (sudoku.getValue(peer) == 0) {
+                eliminate(sudoku, queue, peer, bit);
+            }
+        }
+
+        sudoku.clearPossibleValues(cell);
+        queue.markDirty(geometry.housesOf[cell]);
+    }
+
+    private static boolean eliminate(Sudoku sudoku, WorkQueue queue, int cell, int mask) {
+        if (!sudoku.removeCandidates(cell, mask)) {
+            return false;
+        }
+
+        queue.markDirty(sudoku.getGeometry().housesOf[cell]);
+
+        if (sudoku.getCandidateCount(cell) == 1) {
+            queue.push(cell);
+        }
+
+        return true;
+    }
+
+    private static boolean apply(Sudoku sudoku, WorkQueue queue, TECHNIQUE technique) {
+        switch (technique) {
+            case POINTING:
+                return applyPointing(sudoku, queue);
+            case CLAIMING:
+                return applyClaiming(sudoku, queue);
+            case NAKED_PAIR:
+                return applyNakedSubsets(sudoku, queue, 2);
+            case HIDDEN_PAIR:
+                return applyHiddenSubsets(sudoku, queue, 2);
+            case NAKED_TRIPLE:
+                return applyNakedSubsets(sudoku, queue, 3);
+            case HIDDEN_TRIPLE:
+                return applyHiddenSubsets(sudoku, queue, 3);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean applyHiddenSingles(Sudoku sudoku, WorkQueue queue) {
+        Geometry geometry = sudoku.getGeometry();
+        boolean didChange = false;
+
+        long[] dirtyHouses = queue.takeDirty();
+
+        for (int word = 0; word < dirtyHouses.length; word++) {
+            for (long houses = dirtyHouses[word]; houses != 0; houses &= houses - 1) {
+                int house = Long.SIZE * word + Long.numberOfTrailingZeros(houses);
+                didChange |= applyHiddenSingles(sudoku, queue, geometry.houses[house]);
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean applyHiddenSingles(Sudoku sudoku, WorkQueue queue, int[] house) {
+        boolean didChange = false;
+        int once = 0;
+        int twice = 0;
+        int placed = 0;
+
+        for (int cell : house) {
+            int value = sudoku.getValue(cell);
+
+            if (value != 0) {
+                placed |= 1 << (value - 1);
+            } else {
+                int candidates = sudoku.getCandidates(cell);
+                twice |= once & candidates;
+                once |= candidates;
+            }
+        }
+
+        for (int hidden = once & ~twice & ~placed; hidden != 0; hidden &= hidden - 1) {
+            int bit = hidden & -hidden;
+
+            for (int cell : house) {
+                if (sudoku.getValue(cell) == 0 && (sudoku.getCandidates(cell) & bit) != 0) {
+                    int value = Sudoku.lowestValue(bit);
+
+                    sudoku.setValue(cell, value);
+                    assign(sudoku, queue, cell, value);
+                    sudoku.addTechnique(TECHNIQUE.HIDDEN_SINGLE);
+                    didChange = true;
+
+                    break;
+                }
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean applyPointing(Sudoku sudoku, WorkQueue queue) {
+        Geometry geometry = sudoku.getGeometry();
+        boolean didChange = false;
+
+        for (int block = 0; block < geometry.size; block++) {
+            int[] house = geometry.houses[2 * geometry.size + block];
+
+            for (int bit = 1; bit <= geometry.allValues; bit <<= 1) {
+                int rows = 0;
+                int columns = 0;
+
+                for (int cell : house) {
+                    if ((sudoku.getCandidates(cell) & bit) != 0) {
+                        rows |= 1 << geometry.rowOf[cell];
+                        columns |= 1 << geometry.columnOf[cell];
+                    }
+                }
+
+                if (Integer.bitCount(rows) == 1) {
+                    int row = Integer.numberOfTrailingZeros(rows);
+                    didChange |= removeOutsideBlock(sudoku, queue, geometry.houses[row], block, bit);
+                }
+
+                if (Integer.bitCount(columns) == 1) {
+                    int column = Integer.numberOfTrailingZeros(columns);
+                    didChange |= removeOutsideBlock(sudoku, queue, geometry.houses[geometry.size + column], block, bit);
+                }
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean applyClaiming(Sudoku sudoku, WorkQueue queue) {
+        Geometry geometry = sudoku.getGeometry();
+        boolean didChange = false;
+
+        for (int line = 0; line < 2 * geometry.size; line++) {
+            int[] house = geometry.houses[line];
+
+            for (int bit = 1; bit <= geometry.allValues; bit <<= 1) {
+                int blocks = 0;
+
+                for (int cell : house) {
+                    if ((sudoku.getCandidates(cell) & bit) != 0) {
+                        blocks |= 1 << geometry.blockOf[cell];
+                    }
+                }
+
+                if (Integer.bitCount(blocks) != 1) {
+                    continue;
+                }
+
+                int block = Integer.numberOfTrailingZeros(blocks);
+
+                for (int cell : geometry.houses[2 * geometry.size + block]) {
+                    if (!isInHouse(geometry, cell, line)) {
+                        didChange |= eliminate(sudoku, queue, cell, bit);
+                    }
+                }
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean applyNakedSubsets(Sudoku sudoku, WorkQueue queue, int size) {
+        Geometry geometry = sudoku.getGeometry();
+        boolean didChange = false;
+        int[] members = queue.members;
+
+        for (int[] house : geometry.houses) {
+            int slots = 0;
+
+            for (int slot = 0; slot < geometry.size; slot++) {
+                int count = sudoku.getCandidateCount(house[slot]);
+
+                if (count >= 2 && count <= size) {
+                    slots |= 1 << slot;
+                }
+            }
+
+            int memberCount = toMembers(slots, members);
+
+            for (int combination = (1 << size) - 1; combination < 1 << memberCount; combination = nextCombination(combination)) {
+                int subset = toSubset(combination, members);
+                int union = 0;
+                for (int rest = subset; rest != 0; rest &= rest - 1) {
+                    union |= sudoku.getCandidates(house[Integer.numberOfTrailingZeros(rest)]);
+                }
+
+                if (Integer.bitCount(union) != size) {
+                    continue;
+                }
+
+                for (int slot = 0; slot < geometry.size; slot++) {
+                    if ((subset & (1 << slot)) == 0) {
+                        didChange |= eliminate(sudoku, queue, house[slot], union);
+                    }
+                }
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean applyHiddenSubsets(Sudoku sudoku, WorkQueue queue, int size) {
+        Geometry geometry = sudoku.getGeometry();
+        boolean didChange = false;
+        int[] positions = queue.positions;
+        int[] members = queue.members;
+
+        for (int[] house : geometry.houses) {
+            int digits = 0;
+
+            for (int digit = 0; digit < geometry.size; digit++) {
+                positions[digit] = 0;
+
+                for (int slot = 0; slot < geometry.size; slot++) {
+                    if ((sudoku.getCandidates(house[slot]) & (1 << digit)) != 0) {
+                        positions[digit] |= 1 << slot;
+                    }
+                }
+
+                int count = Integer.bitCount(positions[digit]);
+
+                if (count >= 2 && count <= size) {
+                    digits |= 1 << digit;
+                }
+            }
+
+            int memberCount = toMembers(digits, members);
+
+            for (int combination = (1 << size) - 1; combination < 1 << memberCount; combination = nextCombination(combination)) {
+                int subset = toSubset(combination, members);
+                int union = 0;
+                for (int rest = subset; rest != 0; rest &= rest - 1) {
+                    union |= positions[Integer.numberOfTrailingZeros(rest)];
+                }
+
+                if (Integer.bitCount(union) != size) {
+                    continue;
+                }
+
+                for (int rest = union; rest != 0; rest &= rest - 1) {
+                    didChange |= eliminate(sudoku, queue, house[Integer.numberOfTrailingZeros(rest)], ~subset);
+                }
+            }
+        }
+
+        return didChange;
+    }
+
+    private static int toMembers(int mask, int[] members) {
+        int count = 0;
+
+        for (int rest = mask; rest != 0; rest &= rest - 1) {
+            members[count++] = Integer.numberOfTrailingZeros(rest);
+        }
+
+        return count;
+    }
+
+    private static int toSubset(int combination, int[] members) {
+        int subset = 0;
+
+        for (int rest = combination; rest != 0; rest &= rest - 1) {
+            subset |= 1 << members[Integer.numberOfTrailingZeros(rest)];
+        }
+
+        return subset;
+    }
+
+    // Gosper's hack: the next larger integer with the same number of set bits.
+    private static int nextCombination(int combination) {
+        int lowest = combination & -combination;
+        int ripple = combination + lowest;
+
+        return ripple | (((combination ^ ripple) >>> 2) / lowest);
+    }
+
+    private static boolean removeOutsideBlock(Sudoku sudoku, WorkQueue queue, int[] line, int block, int bit) {
+        boolean didChange = false;
+
+        Geometry geometry = sudoku.getGeometry();
+
+        for (int cell : line) {
+            if (geometry.blockOf[cell] != block) {
+                didChange |= eliminate(sudoku, queue, cell, bit);
+            }
+        }
+
+        return didChange;
+    }
+
+    private static boolean isInHouse(Geometry geometry, int cell, int house) {
+        if (house < geometry.size) {
+            return geometry.rowOf[cell] == house;
+        }
+
+        if (house < 2 * geometry.size) {
+            return geometry.columnOf[cell] == house - geometry.size;
+        }
+
+        return geometry.blockOf[cell] == house - 2 * geometry.size;
+    }
+
+    private static class WorkQueue {
+        private static final Geometry LARGEST = Geometry.of(Geometry.MAX_BOX_SIZE);
+        private static final int CAPACITY = LARGEST.cells;
+        private static final int DIRTY_WORDS = (LARGEST.houseCount + Long.SIZE - 1) / Long.SIZE;
+
+        private final int[] cells = new int[CAPACITY];
+        private final boolean[] isQueued = new boolean[CAPACITY];
+        private final long[] dirtyHouses = new long[DIRTY_WORDS];
+        private final long[] takenHouses = new long[DIRTY_WORDS];
+        private final int[] members = new int[LARGEST.size];
+        private final int[] positions = new int[LARGEST.size];
+        private int head;
+        private int size;
+
+        void clear() {
+            while (!this.isEmpty()) {
+                this.pop();
+            }
+
+            this.head = 0;
+            Arrays.fill(this.dirtyHouses, 0);
+        }
+
+        void markDirty(int house) {
+            this.dirtyHouses[house / Long.SIZE] |= 1L << house;
+        }
+
+        void markDirty(int[] houses) {
+            for (int house : houses) {
+                this.markDirty(house);
+            }
+        }
+
+        long[] takeDirty() {
+            System.arraycopy(this.dirtyHouses, 0, this.takenHouses, 0, DIRTY_WORDS);
+            Arrays.fill(this.dirtyHouses, 0);
+
+            return this.takenHouses;
+        }
+
+        void push(int cell) {
+            if (this.isQueued[cell]) {
+                return;
+            }
+
+            this.cells[(this.head + this.size) % CAPACITY] = cell;
+            this.isQueued[cell] = true;
+            this.size++;
+        }
+
+        int pop() {
+            int cell = this.cells[this.head];
+
+            this.head = (this.head + 1) % CAPACITY;
+            this.isQueued[cell] = false;
+            this.size--;
+
+            return cell;
+        }
+
+        boolean isEmpty() {
+            return this.size == 0;
+        }
+    }
+}
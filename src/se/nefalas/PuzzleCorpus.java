@@ -0,0 +1,131 @@
+package se.nefalas;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+class PuzzleCorpus implements Closeable {
+
+    private static final long WINDOW_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long size;
+    private final Geometry packedGeometry;
+    private final int recordLength;
+
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+
+    PuzzleCorpus(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = this.channel.size();
+        this.map(0);
+
+        if (this.isPacked()) {
+            this.packedGeometry = PackedPuzzleReader.readHeader(this.window);
+            this.recordLength = PackedPuzzleWriter.getRecordLength(this.packedGeometry);
+            this.position = PackedPuzzleWriter.HEADER_LENGTH;
+        } else {
+            this.packedGeometry = null;
+            this.recordLength = 0;
+        }
+    }
+
+    int nextBlock(int[] offsets, int[] lengths) throws IOException {
+        int count = 0;
+
+        while (count < offsets.length) {
+            int start = this.position;
+            int end = this.packedGeometry == null ? this.findTextRecordEnd() : this.findRecordEnd();
+
+            if (end >= 0) {
+                offsets[count] = start;
+                lengths[count] = end - start;
+                count++;
+
+                continue;
+            }
+
+            if (count > 0 || this.isLastWindow()) {
+                break;
+            }
+
+            if (this.position == 0) {
+                throw new IOException("Puzzle does not fit in a mapped window");
+            }
+
+            this.map(this.windowStart + this.position);
+        }
+
+        return count;
+    }
+
+    Sudoku getSudoku(int offset, int length) {
+        if (this.packedGeometry == null) {
+            return new Sudoku(PuzzleParser.parse(this.window, offset, length));
+        }
+
+        return new Sudoku(PackedPuzzleReader.decode(this.packedGeometry, this.window, offset));
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private int findTextRecordEnd() {
+        int limit = this.window.limit();
+        int end = PuzzleParser.findRecordEnd(this.window, this.position, limit, this.isLastWindow());
+
+        if (end >= 0) {
+            this.position = Math.min(end + 1, limit);
+        }
+
+        return end;
+    }
+
+    private int findRecordEnd() throws EOFException {
+        int limit = this.window.limit();
+        int end = this.position + this.recordLength;
+
+        if (end <= limit) {
+            this.position = end;
+
+            return end;
+        }
+
+        if (this.isLastWindow() && this.position < limit) {
+            throw new EOFException("Truncated packed puzzle");
+        }
+
+        return -1;
+    }
+
+    private boolean isPacked() {
+        if (this.window.limit() < PackedPuzzleWriter.MAGIC.length) {
+            return false;
+        }
+
+        byte[] magic = new byte[PackedPuzzleWriter.MAGIC.length];
+        this.window.duplicate().get(magic);
+
+        return PackedPuzzleReader.hasMagic(magic);
+    }
+
+    private boolean isLastWindow() {
+        return this.windowStart + this.window.limit() == this.size;
+    }
+
+    private void map(long start) throws IOException {
+        long length = Math.min(WINDOW_SIZE, this.size - start);
+
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        this.windowStart = start;
+        this.position = 0;
+    }
+}
@@ -0,0 +1,172 @@
+package se.nefalas;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+class PuzzleParser {
+
+    private static final byte SKIP = -1;
+    private static final byte INVALID = -2;
+
+    private static final byte[] VALUES = new byte[256];
+
+    static {
+        Arrays.fill(VALUES, INVALID);
+
+        for (char c : " \t\r\n|+-".toCharArray()) {
+            VALUES[c] = SKIP;
+        }
+
+        VALUES['0'] = 0;
+        VALUES['.'] = 0;
+
+        for (int value = 1; value <= 9; value++) {
+            VALUES['0' + value] = (byte) value;
+        }
+
+        for (int value = 10; value <= Geometry.of(Geometry.MAX_BOX_SIZE).size; value++) {
+            VALUES['A' + value - 10] = (byte) value;
+            VALUES['a' + value - 10] = (byte) value;
+        }
+    }
+
+    static int[] parse(String puzzle) {
+        byte[] bytes = puzzle.getBytes(StandardCharsets.US_ASCII);
+
+        return parse(bytes, 0, bytes.length);
+    }
+
+    static int[] parse(byte[] bytes, int offset, int length) {
+        return parse(ByteBuffer.wrap(bytes), offset, length);
+    }
+
+    static int[] parse(ByteBuffer buffer, int offset, int length) {
+        int end = offset + length;
+        int count = 0;
+
+        for (int i = offset; i < end; i++) {
+            byte value = VALUES[buffer.get(i) & 0xFF];
+
+            if (value == INVALID) {
+                throw new NumberFormatException("Invalid cell value: " + (char) (buffer.get(i) & 0xFF));
+            }
+
+            if (value != SKIP) {
+                count++;
+            }
+        }
+
+        Geometry geometry = Geometry.forCells(count);
+        int[] values = new int[count];
+        int index = 0;
+
+        for (int i = offset; i < end; i++) {
+            byte value = VALUES[buffer.get(i) & 0xFF];
+
+            if (value == SKIP) {
+                continue;
+            }
+
+            if (value > geometry.size) {
+                throw new NumberFormatException("Cell value out of range: " + (char) (buffer.get(i) & 0xFF));
+            }
+
+            values[index++] = value;
+        }
+
+        return values;
+    }
+
+    static int countCells(byte[] bytes, int offset, int length) {
+        return countCells(ByteBuffer.wrap(bytes), offset, length);
+    }
+
+    // Invalid characters count as cells, so a malformed line still ends up in a record and fails to parse there.
+    static int countCells(ByteBuffer buffer, int offset, int length) {
+        int count = 0;
+
+        for (int i = offset; i < offset + length; i++) {
+            if (VALUES[buffer.get(i) & 0xFF] != SKIP) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    // A line that holds a whole puzzle is a record on its own, while a line holding one row of cells may start a
+    // multi-line grid of that many rows. A 16 cell line is read as a 4x4 puzzle, so 16x16 grids must be on one line.
+    static int getRecordRows(int firstLineCells) {
+        for (int boxSize = Geometry.MIN_BOX_SIZE; boxSize <= Geometry.MAX_BOX_SIZE; boxSize++) {
+            if (Geometry.of(boxSize).cells == firstLineCells) {
+                return 1;
+            }
+        }
+
+        for (int boxSize = Geometry.MIN_BOX_SIZE; boxSize <= Geometry.MAX_BOX_SIZE; boxSize++) {
+            if (Geometry.of(boxSize).size == firstLineCells) {
+                return firstLineCells;
+            }
+        }
+
+        return 1;
+    }
+
+    static int findRecordEnd(byte[] bytes, int offset, int limit, boolean isComplete) {
+        return findRecordEnd(ByteBuffer.wrap(bytes), offset, limit, isComplete);
+    }
+
+    // Returns the end of the record that starts at offset, or -1 when more input is needed to tell. A line only starts
+    // a multi-line grid when the rows after it have the same width, with cell-less separator lines allowed between
+    // them. Any other line, including a blank one, is a record of its own so the output stays one line per record.
+    static int findRecordEnd(ByteBuffer buffer, int offset, int limit, boolean isComplete) {
+        if (offset >= limit) {
+            return -1;
+        }
+
+        int firstLineEnd = findLineEnd(buffer, offset, limit, isComplete);
+
+        if (firstLineEnd < 0) {
+            return -1;
+        }
+
+        int width = countCells(buffer, offset, firstLineEnd - offset);
+        int remainingRows = getRecordRows(width) - 1;
+        int lineEnd = firstLineEnd;
+
+        while (remainingRows > 0) {
+            int lineStart = lineEnd + 1;
+
+            if (lineStart >= limit) {
+                return isComplete ? firstLineEnd : -1;
+            }
+
+            lineEnd = findLineEnd(buffer, lineStart, limit, isComplete);
+
+            if (lineEnd < 0) {
+                return -1;
+            }
+
+            int cells = countCells(buffer, lineStart, lineEnd - lineStart);
+
+            if (cells == width) {
+                remainingRows--;
+            } else if (cells != 0) {
+                return firstLineEnd;
+            }
+        }
+
+        return lineEnd;
+    }
+
+    private static int findLineEnd(ByteBuffer buffer, int start, int limit, boolean isComplete) {
+        for (int i = start; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+
+        return isComplete ? limit : -1;
+    }
+}
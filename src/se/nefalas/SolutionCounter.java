@@ -0,0 +1,193 @@
+package se.nefalas;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+class SolutionCounter implements Iterator<Sudoku> {
+
+    private final Sudoku board;
+    private final Geometry geometry;
+    private final int[] cells;
+    private final int[] remaining;
+    private final int emptyCount;
+    private final boolean isValid;
+
+    private int depth;
+    private boolean isStarted;
+    private boolean hasPending;
+    private boolean isExhausted;
+
+    SolutionCounter(Sudoku sudoku) {
+        this.board = sudoku.copy();
+        this.geometry = sudoku.getGeometry();
+        this.cells = new int[this.geometry.cells];
+        this.remaining = new int[this.geometry.cells];
+        this.emptyCount = this.geometry.cells - countFilled(this.board);
+        this.isValid = hasValidGivens(this.board);
+    }
+
+    static int countSolutions(Sudoku sudoku, int limit) {
+        return new SolutionCounter(sudoku).count(limit);
+    }
+
+    static boolean hasUniqueSolution(Sudoku sudoku) {
+        return countSolutions(sudoku, 2) == 1;
+    }
+
+    int count(int limit) {
+        int count = 0;
+
+        while (count < limit && this.hasNext()) {
+            this.hasPending = false;
+            count++;
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!this.hasPending) {
+            this.hasPending = this.advance();
+        }
+
+        return this.hasPending;
+    }
+
+    @Override
+    public Sudoku next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        this.hasPending = false;
+
+        return this.board.copy();
+    }
+
+    private boolean advance() {
+        if (this.isExhausted) {
+            return false;
+        }
+
+        if (!this.isStarted) {
+            this.isStarted = true;
+
+            if (!this.isValid) {
+                this.isExhausted = true;
+
+                return false;
+            }
+
+            if (this.emptyCount == 0) {
+                return true;
+            }
+
+            this.depth = 0;
+            if (!this.push()) {
+                this.isExhausted = true;
+
+                return false;
+            }
+        } else if (this.emptyCount == 0) {
+            this.isExhausted = true;
+
+            return false;
+        }
+
+        while (this.depth >= 0) {
+            int cell = this.cells[this.depth];
+            this.board.setValue(cell, 0);
+
+            int mask = this.remaining[this.depth];
+
+            if (mask == 0) {
+                this.depth--;
+                continue;
+            }
+
+            this.remaining[this.depth] = Sudoku.withoutLowestValue(mask);
+            this.board.setValue(cell, Sudoku.lowestValue(mask));
+
+            if (this.depth + 1 == this.emptyCount) {
+                return true;
+            }
+
+            this.depth++;
+
+            if (!this.push()) {
+                this.depth--;
+            }
+        }
+
+        this.isExhausted = true;
+
+        return false;
+    }
+
+    private boolean push() {
+        int bestCell = -1;
+        int bestMask = 0;
+        int bestCount = Integer.MAX_VALUE;
+
+        for (int i = 0; i < this.geometry.cells; i++) {
+            if (this.board.getValue(i) != 0) {
+                continue;
+            }
+
+            int mask = this.board.getAllowedValues(i);
+            int count = Integer.bitCount(mask);
+
+            if (count == 0) {
+                return false;
+            }
+
+            if (count < bestCount) {
+                bestCell = i;
+                bestMask = mask;
+                bestCount = count;
+
+                if (count == 1) {
+                    break;
+                }
+            }
+        }
+
+        this.cells[this.depth] = bestCell;
+        this.remaining[this.depth] = bestMask;
+
+        return true;
+    }
+
+    private static int countFilled(Sudoku sudoku) {
+        int count = 0;
+
+        for (int i = 0; i < sudoku.getGeometry().cells; i++) {
+            if (sudoku.getValue(i) != 0) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private static boolean hasValidGivens(Sudoku sudoku) {
+        Geometry geometry = sudoku.getGeometry();
+
+        for (int i = 0; i < geometry.cells; i++) {
+            int value = sudoku.getValue(i);
+
+            if (value == 0) {
+                continue;
+            }
+
+            for (int peer : geometry.peers[i]) {
+                if (sudoku.getValue(peer) == value) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,77 @@
+package se.nefalas;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+class SolutionWriter implements Closeable, Flushable {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    SolutionWriter(WritableByteChannel channel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    static SolutionWriter open(String outputPath) throws IOException {
+        if (outputPath == null) {
+            return new SolutionWriter(Channels.newChannel(System.out));
+        }
+
+        return new SolutionWriter(FileChannel.open(
+                Paths.get(outputPath),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        ));
+    }
+
+    void write(Sudoku sudoku) throws IOException {
+        int cells = sudoku.getGeometry().cells;
+
+        if (this.buffer.remaining() < cells + 1) {
+            this.flush();
+        }
+
+        for (int i = 0; i < cells; i++) {
+            int value = sudoku.getValue(i);
+            this.buffer.put((byte) (value == 0 ? '0' : Sudoku.valueToChar(value)));
+        }
+
+        this.buffer.put((byte) '\n');
+    }
+
+    void writeEmpty() throws IOException {
+        if (!this.buffer.hasRemaining()) {
+            this.flush();
+        }
+
+        this.buffer.put((byte) '\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.buffer.flip();
+
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+
+        this.buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.flush();
+        this.channel.close();
+    }
+}
@@ -0,0 +1,319 @@
+package se.nefalas;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class SolveCache {
+
+    private final int capacity;
+    private final Map<String, Cached> entries;
+
+    // Indexes into entries, pruned whenever an entry is evicted, so capacity bounds the whole cache.
+    private final Map<String, Cached> signatures;
+    private final Map<String, Cached> canonicalEntries;
+
+    private long canonicalizeNanos;
+
+    private long hitCount;
+    private long canonicalHitCount;
+    private long missCount;
+    private long canonicalizeCount;
+    private long evictionCount;
+
+    SolveCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+
+        this.capacity = capacity;
+        this.signatures = new HashMap<>();
+        this.canonicalEntries = new HashMap<>();
+        this.entries = new LinkedHashMap<String, Cached>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                if (this.size() <= SolveCache.this.capacity) {
+                    return false;
+                }
+
+                SolveCache.this.unindex(eldest.getValue());
+                SolveCache.this.evictionCount++;
+
+                return true;
+            }
+        };
+    }
+
+    Lookup lookup(Sudoku puzzle) {
+        Geometry geometry = puzzle.getGeometry();
+        int[] values = new int[geometry.cells];
+
+        for (int i = 0; i < geometry.cells; i++) {
+            values[i] = puzzle.getValue(i);
+        }
+
+        String key = toKey(values);
+        String signature = CanonicalForm.isSupported(geometry) ? getSignature(geometry, values) : null;
+        Cached similar;
+
+        synchronized (this) {
+            Cached entry = this.entries.get(key);
+
+            if (entry != null) {
+                this.hitCount++;
+
+                return new Lookup(key, values, signature, null, new Sudoku(entry.solution.clone()));
+            }
+
+            similar = signature == null ? null : this.signatures.get(signature);
+
+            // A puzzle with the same invariants may be a relabelled or permuted copy of one solved before, but a
+            // first canonical hit costs two canonicalizations, so it only pays off when that solve took longer.
+            if (similar == null || similar.solveNanos <= 2 * this.canonicalizeNanos) {
+                this.missCount++;
+
+                return new Lookup(key, values, signature, null, null);
+            }
+        }
+
+        if (!similar.isCanonicalized()) {
+            CanonicalForm similarForm = this.canonicalize(new Sudoku(similar.puzzle.clone()));
+
+            synchronized (this) {
+                if (similarForm == null) {
+                    similar.canonicalKey = "";
+                } else if (similar.canonicalKey == null) {
+                    similar.canonicalKey = similarForm.getKey();
+                    similar.canonical = similarForm.toCanonical(new Sudoku(similar.solution.clone()));
+
+                    if (this.entries.containsKey(similar.key)) {
+                        this.canonicalEntries.put(similar.canonicalKey, similar);
+                    }
+                }
+            }
+        }
+
+        CanonicalForm form = this.canonicalize(puzzle);
+
+        if (form == null) {
+            synchronized (this) {
+                this.missCount++;
+            }
+
+            return new Lookup(key, values, signature, null, null);
+        }
+
+        Cached match;
+
+        synchronized (this) {
+            match = this.canonicalEntries.get(form.getKey());
+
+            if (match == null) {
+                this.missCount++;
+
+                return new Lookup(key, values, signature, form, null);
+            }
+
+            this.hitCount++;
+            this.canonicalHitCount++;
+        }
+
+        Sudoku solution = form.fromCanonical(match.canonical);
+        int[] solutionValues = new int[geometry.cells];
+
+        for (int i = 0; i < geometry.cells; i++) {
+            solutionValues[i] = solution.getValue(i);
+        }
+
+        Cached entry = new Cached(key, values, solutionValues, signature, match.solveNanos);
+        entry.canonicalKey = form.getKey();
+        entry.canonical = match.canonical;
+
+        synchronized (this) {
+            this.add(entry);
+        }
+
+        return new Lookup(key, values, signature, form, solution);
+    }
+
+    void put(Lookup lookup, Sudoku solution, long solveNanos) {
+        if (solution == null || !solution.isFull() || lookup.solution != null) {
+            return;
+        }
+
+        int[] values = new int[solution.getGeometry().cells];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = solution.getValue(i);
+        }
+
+        Cached entry = new Cached(lookup.key, lookup.puzzle, values, lookup.signature, solveNanos);
+
+        if (lookup.form != null) {
+            entry.canonicalKey = lookup.form.getKey();
+            entry.canonical = lookup.form.toCanonical(solution);
+        }
+
+        synchronized (this) {
+            this.add(entry);
+        }
+    }
+
+    synchronized int size() {
+        return this.entries.size();
+    }
+
+    synchronized long getHitCount() {
+        return this.hitCount;
+    }
+
+    synchronized long getMissCount() {
+        return this.missCount;
+    }
+
+    synchronized long getEvictionCount() {
+        return this.evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "%d cached, %d hits (%d by canonical form), %d misses, %d canonicalized, %d evictions",
+                this.entries.size(),
+                this.hitCount,
+                this.canonicalHitCount,
+                this.missCount,
+                this.canonicalizeCount,
+                this.evictionCount
+        );
+    }
+
+    private void add(Cached entry) {
+        Cached replaced = this.entries.put(entry.key, entry);
+
+        if (replaced != null) {
+            this.unindex(replaced);
+        }
+
+        if (entry.signature != null) {
+            this.signatures.put(entry.signature, entry);
+        }
+
+        if (entry.canonical != null) {
+            this.canonicalEntries.put(entry.canonicalKey, entry);
+        }
+    }
+
+    private void unindex(Cached entry) {
+        if (entry.signature != null) {
+            this.signatures.remove(entry.signature, entry);
+        }
+
+        if (entry.canonicalKey != null) {
+            this.canonicalEntries.remove(entry.canonicalKey, entry);
+        }
+    }
+
+    private CanonicalForm canonicalize(Sudoku puzzle) {
+        long start = System.nanoTime();
+        CanonicalForm form = CanonicalForm.of(puzzle);
+        long elapsed = System.nanoTime() - start;
+
+        synchronized (this) {
+            this.canonicalizeCount++;
+            this.canonicalizeNanos = this.canonicalizeCount == 1
+                    ? elapsed
+                    : this.canonicalizeNanos + (elapsed - this.canonicalizeNanos) / 8;
+        }
+
+        return form;
+    }
+
+    private static String toKey(int[] values) {
+        char[] key = new char[values.length];
+
+        for (int i = 0; i < values.length; i++) {
+            key[i] = values[i] == 0 ? '0' : Sudoku.valueToChar(values[i]);
+        }
+
+        return new String(key);
+    }
+
+    // Clue counts per row, column, box and digit, sorted, do not change under any of the symmetries canonical forms
+    // remove, so only puzzles that share them can be copies of each other.
+    private static String getSignature(Geometry geometry, int[] values) {
+        int[] rows = new int[geometry.size];
+        int[] columns = new int[geometry.size];
+        int[] boxes = new int[geometry.size];
+        int[] digits = new int[geometry.size];
+
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != 0) {
+                rows[geometry.rowOf[i]]++;
+                columns[geometry.columnOf[i]]++;
+                boxes[geometry.blockOf[i]]++;
+                digits[values[i] - 1]++;
+            }
+        }
+
+        Arrays.sort(rows);
+        Arrays.sort(columns);
+        Arrays.sort(boxes);
+        Arrays.sort(digits);
+
+        String lines = Arrays.toString(rows);
+        String otherLines = Arrays.toString(columns);
+
+        if (lines.compareTo(otherLines) > 0) {
+            String swap = lines;
+            lines = otherLines;
+            otherLines = swap;
+        }
+
+        return lines + otherLines + Arrays.toString(boxes) + Arrays.toString(digits);
+    }
+
+    static class Lookup {
+        private final String key;
+        private final int[] puzzle;
+        private final String signature;
+        private final CanonicalForm form;
+        private final Sudoku solution;
+
+        Lookup(String key, int[] puzzle, String signature, CanonicalForm form, Sudoku solution) {
+            this.key = key;
+            this.puzzle = puzzle;
+            this.signature = signature;
+            this.form = form;
+            this.solution = solution;
+        }
+
+        Sudoku getSolution() {
+            return this.solution;
+        }
+    }
+
+    private static class Cached {
+        private final String key;
+        private final int[] puzzle;
+        private final int[] solution;
+        private final String signature;
+        private final long solveNanos;
+
+        // Empty once canonicalizing the puzzle has failed, so it is not tried again.
+        private String canonicalKey;
+        private int[] canonical;
+
+        Cached(String key, int[] puzzle, int[] solution, String signature, long solveNanos) {
+            this.key = key;
+            this.puzzle = puzzle;
+            this.solution = solution;
+            this.signature = signature;
+            this.solveNanos = solveNanos;
+        }
+
+        boolean isCanonicalized() {
+            return this.canonicalKey != null;
+        }
+    }
+}
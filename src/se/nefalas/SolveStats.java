@@ -0,0 +1,97 @@
+package se.nefalas;
+
+class SolveStats {
+
+    private long nodeCount;
+    private long backtrackCount;
+    private long propagationCount;
+    private int maxDepth;
+
+    private long elapsedNanos;
+    private long workNanos;
+    private long allocatedBytes;
+
+    private long workStart;
+    private long allocationStart;
+
+    void node(int depth) {
+        this.nodeCount++;
+
+        if (depth > this.maxDepth) {
+            this.maxDepth = depth;
+        }
+    }
+
+    void backtrack() {
+        this.backtrackCount++;
+    }
+
+    void propagation() {
+        this.propagationCount++;
+    }
+
+    void startWork() {
+        this.workStart = System.nanoTime();
+        this.allocationStart = SolverMetrics.getAllocatedBytes();
+    }
+
+    void stopWork() {
+        this.workNanos += System.nanoTime() - this.workStart;
+        this.allocatedBytes += SolverMetrics.getAllocatedBytes() - this.allocationStart;
+    }
+
+    synchronized void merge(SolveStats other) {
+        this.nodeCount += other.nodeCount;
+        this.backtrackCount += other.backtrackCount;
+        this.propagationCount += other.propagationCount;
+        this.maxDepth = Math.max(this.maxDepth, other.maxDepth);
+        this.workNanos += other.workNanos;
+        this.allocatedBytes += other.allocatedBytes;
+    }
+
+    synchronized void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    synchronized long getNodeCount() {
+        return this.nodeCount;
+    }
+
+    synchronized long getBacktrackCount() {
+        return this.backtrackCount;
+    }
+
+    synchronized long getPropagationCount() {
+        return this.propagationCount;
+    }
+
+    synchronized int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    synchronized long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    synchronized long getWorkNanos() {
+        return this.workNanos;
+    }
+
+    synchronized long getAllocatedBytes() {
+        return this.allocatedBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(
+                "elapsedNanos=%d workNanos=%d nodes=%d backtracks=%d propagations=%d maxDepth=%d allocatedBytes=%d",
+                this.elapsedNanos,
+                this.workNanos,
+                this.nodeCount,
+                this.backtrackCount,
+                this.propagationCount,
+                this.maxDepth,
+                this.allocatedBytes
+        );
+    }
+}
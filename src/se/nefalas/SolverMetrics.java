@@ -0,0 +1,186 @@
+package se.nefalas;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+class SolverMetrics implements SolverMetricsMXBean {
+
+    private static final com.sun.management.ThreadMXBean THREADS = getThreadBean();
+
+    private final LongAdder solveCount;
+    private final LongAdder failureCount;
+    private final LongAdder nodeCount;
+    private final LongAdder backtrackCount;
+    private final LongAdder propagationCount;
+    private final LongAccumulator maxDepth;
+    private final LatencyHistogram latency;
+    private final Map<String, Worker> workers;
+
+    SolverMetrics() {
+        this.solveCount = new LongAdder();
+        this.failureCount = new LongAdder();
+        this.nodeCount = new LongAdder();
+        this.backtrackCount = new LongAdder();
+        this.propagationCount = new LongAdder();
+        this.maxDepth = new LongAccumulator(Math::max, 0);
+        this.latency = new LatencyHistogram();
+        this.workers = new ConcurrentHashMap<>();
+    }
+
+    void register(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("se.nefalas:type=SolverMetrics,name=" + name);
+
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+
+            server.registerMBean(this, objectName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register solver metrics", e);
+        }
+    }
+
+    void recordWork(SolveStats stats) {
+        this.nodeCount.add(stats.getNodeCount());
+        this.backtrackCount.add(stats.getBacktrackCount());
+        this.propagationCount.add(stats.getPropagationCount());
+        this.maxDepth.accumulate(stats.getMaxDepth());
+
+        Worker worker = this.workers.computeIfAbsent(Thread.currentThread().getName(), name -> new Worker());
+        worker.nanos.add(stats.getWorkNanos());
+        worker.allocatedBytes.add(stats.getAllocatedBytes());
+    }
+
+    void recordSolve(long elapsedNanos, boolean solved) {
+        if (solved) {
+            this.solveCount.increment();
+        } else {
+            this.failureCount.increment();
+        }
+
+        this.latency.record(elapsedNanos);
+    }
+
+    static long getAllocatedBytes() {
+        if (THREADS == null) {
+            return 0;
+        }
+
+        return Math.max(THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()), 0);
+    }
+
+    @Override
+    public long getSolveCount() {
+        return this.solveCount.sum();
+    }
+
+    @Override
+    public long getFailureCount() {
+        return this.failureCount.sum();
+    }
+
+    @Override
+    public long getNodeCount() {
+        return this.nodeCount.sum();
+    }
+
+    @Override
+    public long getBacktrackCount() {
+        return this.backtrackCount.sum();
+    }
+
+    @Override
+    public long getPropagationCount() {
+        return this.propagationCount.sum();
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return (int) this.maxDepth.get();
+    }
+
+    @Override
+    public long getLatencyMedianNanos() {
+        return this.latency.getPercentile(50);
+    }
+
+    @Override
+    public long getLatency99thPercentileNanos() {
+        return this.latency.getPercentile(99);
+    }
+
+    @Override
+    public long getLatencyMaxNanos() {
+        return this.latency.getMax();
+    }
+
+    @Override
+    public long[] getLatencyHistogram() {
+        return this.latency.getCounts();
+    }
+
+    @Override
+    public Map<String, Long> getWorkerNanos() {
+        Map<String, Long> nanos = new TreeMap<>();
+        this.workers.forEach((name, worker) -> nanos.put(name, worker.nanos.sum()));
+
+        return nanos;
+    }
+
+    @Override
+    public Map<String, Long> getWorkerAllocatedBytes() {
+        Map<String, Long> allocatedBytes = new TreeMap<>();
+        this.workers.forEach((name, worker) -> allocatedBytes.put(name, worker.allocatedBytes.sum()));
+
+        return allocatedBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "solves=%d failures=%d nodes=%d backtracks=%d propagations=%d maxDepth=%d p50Nanos=%d p99Nanos=%d maxNanos=%d",
+                this.getSolveCount(),
+                this.getFailureCount(),
+                this.getNodeCount(),
+                this.getBacktrackCount(),
+                this.getPropagationCount(),
+                this.getMaxDepth(),
+                this.getLatencyMedianNanos(),
+                this.getLatency99thPercentileNanos(),
+                this.getLatencyMaxNanos()
+        );
+    }
+
+    private static com.sun.management.ThreadMXBean getThreadBean() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+
+        if (!allocations.isThreadAllocatedMemorySupported()) {
+            return null;
+        }
+
+        allocations.setThreadAllocatedMemoryEnabled(true);
+
+        return allocations;
+    }
+
+    private static class Worker {
+        private final LongAdder nanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+}
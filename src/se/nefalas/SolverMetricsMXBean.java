@@ -0,0 +1,30 @@
+package se.nefalas;
+
+import java.util.Map;
+
+public interface SolverMetricsMXBean {
+
+    long getSolveCount();
+
+    long getFailureCount();
+
+    long getNodeCount();
+
+    long getBacktrackCount();
+
+    long getPropagationCount();
+
+    int getMaxDepth();
+
+    long getLatencyMedianNanos();
+
+    long getLatency99thPercentileNanos();
+
+    long getLatencyMaxNanos();
+
+    long[] getLatencyHistogram();
+
+    Map<String, Long> getWorkerNanos();
+
+    Map<String, Long> getWorkerAllocatedBytes();
+}
@@ -1,50 +1,112 @@
 package se.nefalas;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
+import java.util.EnumSet;
 
 class Sudoku {
+    private static final int TRAIL_VALUE = 0;
+    private static final int TRAIL_POSSIBLE_VALUES = 1;
+    private static final int TRAIL_EMPTIED = 2;
+    private static final int TRAIL_TECHNIQUES = 3;
+
+    private final Geometry geometry;
+
     private int[] values;
     private int[] possibleValues;
     private boolean[] emptiedPossibleValues;
     private long lastPrint;
 
+    private int[] rowMasks;
+    private int[] columnMasks;
+    private int[] blockMasks;
+    private int filledCount;
+    private int techniques;
+
+    private int[] trail;
+    private int trailSize;
+
     Sudoku(int[] values) {
+        this.geometry = Geometry.forCells(values.length);
         this.values = values;
-        this.possibleValues = new int[81];
-        this.emptiedPossibleValues = new boolean[81];
+        this.possibleValues = new int[this.geometry.cells];
+        this.emptiedPossibleValues = new boolean[this.geometry.cells];
         this.lastPrint = 0;
 
-        Arrays.fill(this.possibleValues, ~0);
+        this.rowMasks = new int[this.geometry.size];
+        this.columnMasks = new int[this.geometry.size];
+        this.blockMasks = new int[this.geometry.size];
+        this.filledCount = 0;
+
+        Arrays.fill(this.possibleValues, this.geometry.allValues);
         Arrays.fill(this.emptiedPossibleValues, false);
+
+        for (int i = 0; i < this.geometry.cells; i++) {
+            if (values[i] != 0) {
+                this.addToMasks(i, values[i]);
+            }
+        }
     }
 
     Sudoku(String values) {
-        this(stringToIntArray(values));
+        this(PuzzleParser.parse(values));
     }
 
-    private Sudoku(int[] values, int[] possibleValues, boolean[] emptiedPossibleValues, long lastPrint) {
-        this.values = values;
-        this.possibleValues = possibleValues;
-        this.emptiedPossibleValues = emptiedPossibleValues;
-        this.lastPrint = lastPrint;
+    private Sudoku(Sudoku other) {
+        this.geometry = other.geometry;
+        this.values = other.values.clone();
+        this.possibleValues = other.possibleValues.clone();
+        this.emptiedPossibleValues = other.emptiedPossibleValues.clone();
+        this.lastPrint = other.lastPrint;
+
+        this.rowMasks = other.rowMasks.clone();
+        this.columnMasks = other.columnMasks.clone();
+        this.blockMasks = other.blockMasks.clone();
+        this.filledCount = other.filledCount;
+        this.techniques = other.techniques;
+    }
+
+    Geometry getGeometry() {
+        return this.geometry;
+    }
+
+    int getValue(int index) {
+        return this.values[index];
     }
 
     int getValue(int row, int column) {
-        return this.values[getIndexFromRowAndColumn(row, column)];
+        return this.values[this.geometry.getIndex(row, column)];
     }
 
     void setValue(int index, int value) {
+        int previous = this.values[index];
+
+        if (this.trail != null) {
+            this.record(TRAIL_VALUE, index, previous);
+        }
+
+        this.writeValue(index, value);
+    }
+
+    private void writeValue(int index, int value) {
+        int previous = this.values[index];
+
+        if (previous != 0) {
+            this.removeFromMasks(index, previous);
+        }
+
         this.values[index] = value;
+
+        if (value != 0) {
+            this.addToMasks(index, value);
+        }
     }
 
     void setValue(int row, int column, int value) {
-        this.values[getIndexFromRowAndColumn(row, column)] = value;
+        this.setValue(this.geometry.getIndex(row, column), value);
     }
 
     int getFirstEmptyIndex() {
-        for (int i = 0; i < 81; i++) {
+        for (int i = 0; i < this.geometry.cells; i++) {
             if (this.values[i] == 0) {
                 return i;
             }
@@ -54,39 +116,76 @@ class Sudoku {
     }
 
     int[] getPossibleValues(int row, int column) {
-        int bits = this.possibleValues[getIndexFromRowAndColumn(row, column)];
+        int bits = this.possibleValues[this.geometry.getIndex(row, column)];
 
-        return getPossibleValuesFromBits(bits);
+        return this.getPossibleValuesFromBits(bits);
     }
 
     int[] getPossibleValues(int index) {
         int bits = this.possibleValues[index];
 
-        return getPossibleValuesFromBits(bits);
+        return this.getPossibleValuesFromBits(bits);
+    }
+
+    int getCandidateCount(int index) {
+        return Integer.bitCount(this.possibleValues[index]);
+    }
+
+    int getCandidates(int index) {
+        return this.possibleValues[index];
+    }
+
+    static int lowestValue(int mask) {
+        return Integer.numberOfTrailingZeros(mask) + 1;
+    }
+
+    static int withoutLowestValue(int mask) {
+        return mask & (mask - 1);
+    }
+
+    boolean removeCandidates(int index, int mask) {
+        int bits = this.possibleValues[index];
+
+        if ((bits & mask) == 0) {
+            return false;
+        }
+
+        this.setPossibleValues(index, bits & ~mask);
+
+        return true;
     }
 
     void addPossibleValue(int row, int column, int value) {
-        int index = getIndexFromRowAndColumn(row, column);
+        int index = this.geometry.getIndex(row, column);
 
         int bits = this.possibleValues[index];
         bits |= 1 << (value - 1);
 
-        this.possibleValues[index] = bits;
+        this.setPossibleValues(index, bits);
     }
 
     private void removePossibleValue(int row, int column, int value) {
-        int index = getIndexFromRowAndColumn(row, column);
+        int index = this.geometry.getIndex(row, column);
 
         int bits = this.possibleValues[index];
         bits &= ~(1 << (value - 1));
 
-        this.possibleValues[index] = bits;
+        this.setPossibleValues(index, bits);
+    }
+
+    void emptyPossibleValues(int index, int value) {
+        this.emptyPossibleValues(this.geometry.rowOf[index], this.geometry.columnOf[index], value);
     }
 
     void emptyPossibleValues(int row, int column, int value) {
         this.removeAllPossibleValues(row, column);
         this.removePossibleValueFromNeighbours(row, column, value);
-        this.addEmptiedPossibleValue(getIndexFromRowAndColumn(row, column));
+        this.addEmptiedPossibleValue(this.geometry.getIndex(row, column));
+    }
+
+    void clearPossibleValues(int index) {
+        this.setPossibleValues(index, 0);
+        this.addEmptiedPossibleValue(index);
     }
 
     boolean isEmptyAtIndex(int index) {
@@ -94,90 +193,126 @@ class Sudoku {
     }
 
     private void removeAllPossibleValues(int row, int column) {
-        this.possibleValues[getIndexFromRowAndColumn(row, column)] = 0;
+        this.setPossibleValues(this.geometry.getIndex(row, column), 0);
     }
 
     private void removePossibleValueFromNeighbours(int row, int column, int value) {
-        this.removePossibleValueFromRow(row, value);
-        this.removePossibleValueFromColumn(column, value);
-        this.removePossibleValueFromBlock(row, column, value);
+        int bit = 1 << (value - 1);
+
+        for (int peer : this.geometry.peers[this.geometry.getIndex(row, column)]) {
+            int bits = this.possibleValues[peer];
+
+            if ((bits & bit) != 0) {
+                this.setPossibleValues(peer, bits & ~bit);
+            }
+        }
     }
 
     private void addEmptiedPossibleValue(int index) {
+        if (this.trail != null) {
+            this.record(TRAIL_EMPTIED, index, this.emptiedPossibleValues[index] ? 1 : 0);
+        }
+
         this.emptiedPossibleValues[index] = true;
     }
 
-    private void removePossibleValueFromRow(int row, int value) {
-        for (int i = 0; i < 9; i++) {
-            this.removePossibleValue(row, i, value);
+    private void setPossibleValues(int index, int bits) {
+        if (this.trail != null) {
+            this.record(TRAIL_POSSIBLE_VALUES, index, this.possibleValues[index]);
         }
+
+        this.possibleValues[index] = bits;
     }
 
-    private void removePossibleValueFromColumn(int column, int value) {
-        for (int i = 0; i < 9; i++) {
-            this.removePossibleValue(i, column, value);
-        }
+    private void addToMasks(int index, int value) {
+        int bit = 1 << (value - 1);
+
+        this.rowMasks[this.geometry.rowOf[index]] |= bit;
+        this.columnMasks[this.geometry.columnOf[index]] |= bit;
+        this.blockMasks[this.geometry.blockOf[index]] |= bit;
+        this.filledCount++;
     }
 
-    private void removePossibleValueFromBlock(int row, int column, int value) {
-        int startRowIndex = (row / 3) * 3;
-        int startColumnIndex = (column / 3) * 3;
+    private void removeFromMasks(int index, int value) {
+        int bit = ~(1 << (value - 1));
 
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                this.removePossibleValue(startRowIndex + i, startColumnIndex + j, value);
-            }
+        this.rowMasks[this.geometry.rowOf[index]] &= bit;
+        this.columnMasks[this.geometry.columnOf[index]] &= bit;
+        this.blockMasks[this.geometry.blockOf[index]] &= bit;
+        this.filledCount--;
+    }
+
+    int getUsedValues(int index) {
+        return this.rowMasks[this.geometry.rowOf[index]]
+                | this.columnMasks[this.geometry.columnOf[index]]
+                | this.blockMasks[this.geometry.blockOf[index]];
+    }
+
+    int getAllowedValues(int index) {
+        if (this.values[index] != 0) {
+            return 0;
         }
+
+        return this.geometry.allValues & ~this.getUsedValues(index);
     }
 
     boolean cannotHaveValue(int row, int column, int value) {
-        if (this.getValue(row, column) != 0) {
+        int index = this.geometry.getIndex(row, column);
+
+        if (this.values[index] != 0) {
             return true;
         }
 
-        int[] rowArray = this.getRow(row);
-        int[] columnArray = this.getColumn(column);
-        int[] blockArray = this.getBlock(row, column);
-
-        return Utils.intArrayContains(rowArray, value)
-                || Utils.intArrayContains(columnArray, value)
-                || Utils.intArrayContains(blockArray, value);
+        return (this.getUsedValues(index) & (1 << (value - 1))) != 0;
     }
 
     int[] getRow(int rowIndex) {
-        int startIndex = rowIndex * 9;
-        int endIndex = startIndex + 9;
+        int startIndex = rowIndex * this.geometry.size;
+        int endIndex = startIndex + this.geometry.size;
 
         return Arrays.copyOfRange(this.values, startIndex, endIndex);
     }
 
-    private int[] getColumn(int columnIndex) {
-        int[] array = new int[9];
-        for (int i = 0; i < 9; i++) {
-            array[i] = this.values[i * 9 + columnIndex];
+    boolean isFull() {
+        return this.filledCount == this.geometry.cells;
+    }
+
+    void addTechnique(Propagator.TECHNIQUE technique) {
+        int techniques = this.techniques | 1 << technique.ordinal();
+
+        if (techniques == this.techniques) {
+            return;
         }
 
-        return array;
+        if (this.trail != null) {
+            this.record(TRAIL_TECHNIQUES, 0, this.techniques);
+        }
+
+        this.techniques = techniques;
     }
 
-    private int[] getBlock(int row, int column) {
-        int startRowIndex = (row / 3) * 3;
-        int startColumnIndex = (column / 3) * 3;
-        int[] array = new int[9];
+    EnumSet<Propagator.TECHNIQUE> getTechniques() {
+        EnumSet<Propagator.TECHNIQUE> used = EnumSet.noneOf(Propagator.TECHNIQUE.class);
 
-        int index = 0;
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                array[index] = this.getValue(startRowIndex + i, startColumnIndex + j);
-                index++;
+        for (Propagator.TECHNIQUE technique : Propagator.TECHNIQUE.values()) {
+            if ((this.techniques & (1 << technique.ordinal())) != 0) {
+                used.add(technique);
             }
         }
 
-        return array;
+        return used;
     }
 
-    boolean isFull() {
-        return Utils.intArrayDoesNotContain(this.values, 0);
+    Propagator.DIFFICULTY getDifficulty() {
+        Propagator.DIFFICULTY difficulty = Propagator.DIFFICULTY.EASY;
+
+        for (Propagator.TECHNIQUE technique : this.getTechniques()) {
+            if (technique.getDifficulty().compareTo(difficulty) > 0) {
+                difficulty = technique.getDifficulty();
+            }
+        }
+
+        return difficulty;
     }
 
     void print(boolean force) {
@@ -192,31 +327,42 @@ class Sudoku {
         this.lastPrint = now;
         Utils.clearScreen();
 
-        for (int i = 0; i < 81; i++) {
+        System.out.print(this.toGridString() + System.lineSeparator() + System.lineSeparator());
+        System.out.flush();
+    }
+
+    String toGridString() {
+        int size = this.geometry.size;
+        int boxSize = this.geometry.boxSize;
+        int cells = this.geometry.cells;
+        String lineSeparator = System.lineSeparator();
+
+        StringBuilder separator = new StringBuilder();
+        for (int i = 0; i < 2 * size + 2 * (boxSize - 1) - 1; i++) {
+            separator.append('-');
+        }
+
+        StringBuilder builder = new StringBuilder((2 * size + 2 * boxSize + lineSeparator.length()) * (size + boxSize));
+
+        for (int i = 0; i < cells; i++) {
             int value = this.values[i];
 
-            if (value == 0) {
-                System.out.print(" ");
-            } else {
-                System.out.print(value);
-            }
-            System.out.print(" ");
+            builder.append(valueToChar(value)).append(' ');
 
-            if ((i + 1) % 3 == 0 && i % 9 != 8) {
-                System.out.print("| ");
+            if ((i + 1) % boxSize == 0 && i % size != size - 1) {
+                builder.append("| ");
             }
 
-            if ((i+1) % 9 == 0) {
-                System.out.println();
+            if ((i+1) % size == 0) {
+                builder.append(lineSeparator);
             }
 
-            if ((i + 1) % 27 == 0 && i != 80) {
-                System.out.println("---------------------");
+            if ((i + 1) % (size * boxSize) == 0 && i != cells - 1) {
+                builder.append(separator).append(lineSeparator);
             }
         }
 
-        System.out.println();
-        System.out.println();
+        return builder.toString();
     }
 
     void print() {
@@ -225,45 +371,89 @@ class Sudoku {
 
     void printPossibleValues() {
         for (int bits : this.possibleValues) {
-            int[] values = getPossibleValuesFromBits(bits);
+            int[] values = this.getPossibleValuesFromBits(bits);
 
             System.out.println(Arrays.toString(values));
         }
     }
 
-    Sudoku copy() {
-        return new Sudoku(
-                this.values.clone(),
-                this.possibleValues.clone(),
-                this.emptiedPossibleValues.clone(),
-                this.lastPrint
-        );
+    int checkpoint() {
+        if (this.trail == null) {
+            this.trail = new int[3 * 256];
+        }
+
+        return this.trailSize;
     }
 
-    private static int getIndexFromRowAndColumn(int row, int column) {
-        return 9 * row + column;
+    void undo(int checkpoint) {
+        while (this.trailSize > checkpoint) {
+            this.trailSize -= 3;
+
+            int kind = this.trail[this.trailSize];
+            int index = this.trail[this.trailSize + 1];
+            int previous = this.trail[this.trailSize + 2];
+
+            switch (kind) {
+                case TRAIL_VALUE:
+                    this.writeValue(index, previous);
+                    break;
+                case TRAIL_POSSIBLE_VALUES:
+                    this.possibleValues[index] = previous;
+                    break;
+                case TRAIL_EMPTIED:
+                    this.emptiedPossibleValues[index] = previous != 0;
+                    break;
+                case TRAIL_TECHNIQUES:
+                    this.techniques = previous;
+                    break;
+            }
+        }
     }
 
-    private static int[] getPossibleValuesFromBits(int bits) {
-        List<Integer> values = new ArrayList<>();
+    private void record(int kind, int index, int previous) {
+        if (this.trailSize + 3 > this.trail.length) {
+            this.trail = Arrays.copyOf(this.trail, this.trail.length * 2);
+        }
 
-        for (int i = 0; i < 9; i++) {
-            if ((bits >> i & 1) == 1) {
-                values.add(i + 1);
-            }
+        this.trail[this.trailSize] = kind;
+        this.trail[this.trailSize + 1] = index;
+        this.trail[this.trailSize + 2] = previous;
+        this.trailSize += 3;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(this.geometry.cells);
+
+        for (int value : this.values) {
+            builder.append(value == 0 ? '0' : valueToChar(value));
         }
 
-        return values.stream().mapToInt(i -> i).toArray();
+        return builder.toString();
+    }
+
+    Sudoku copy() {
+        return new Sudoku(this);
     }
 
-    private static int[] stringToIntArray(String test) {
-        String[] arr = test.split("");
-        int[] values = new int[arr.length];
+    private int[] getPossibleValuesFromBits(int bits) {
+        bits &= this.geometry.allValues;
 
-        for (int i = 0; i < values.length; i++) {
-            values[i] = Integer.parseInt(arr[i]);
+        int[] values = new int[Integer.bitCount(bits)];
+
+        int index = 0;
+        for (int mask = bits; mask != 0; mask = withoutLowestValue(mask)) {
+            values[index++] = lowestValue(mask);
         }
 
         return values;
     }
+
+    static char valueToChar(int value) {
+        if (value == 0) {
+            return ' ';
+        }
+
+        return value <= 9 ? (char) ('0' + value) : (char) ('A' + value - 10);
+    }
 }
\ No newline at end of file
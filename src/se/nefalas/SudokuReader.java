@@ -1,65 +1,85 @@
 package se.nefalas;
 
-import net.sourceforge.tess4j.Tesseract;
-import net.sourceforge.tess4j.TesseractException;
 import org.opencv.core.*;
 import org.opencv.core.Point;
 import org.opencv.imgcodecs.Imgcodecs;
 import org.opencv.imgproc.Imgproc;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.color.ColorSpace;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
 import java.io.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toMap;
 
-class SudokuReader {
+class SudokuReader implements Closeable {
 
-    static {
-        loadLib();
-    }
+    enum GRID_VALUES {ROWS, COLUMNS}
+
+    enum OCR_MODE {CELLS, STRIP}
 
-    private enum GRID_VALUES {ROWS, COLUMNS}
+    private static final ColorModel GRAY_MODEL = new ComponentColorModel(
+            ColorSpace.getInstance(ColorSpace.CS_GRAY), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE
+    );
+    private static final ColorModel BGR_MODEL = new ComponentColorModel(
+            ColorSpace.getInstance(ColorSpace.CS_sRGB), false, false, Transparency.OPAQUE, DataBuffer.TYPE_BYTE
+    );
 
-    private Tesseract tesseract;
+    private static final int MAX_OCR_THREADS = 4;
+
+    private TesseractPool tesseracts;
+    private DigitClassifier classifier;
+    private OCR_MODE ocrMode;
     private boolean debug;
 
     private OnUpdate onUpdate;
 
     private Mat original;
 
+    private final Mat input;
+    private final Mat ocrInput;
+    private byte[] ocrBuffer;
+
     SudokuReader(OnUpdate onUpdate) {
-        String dataPath = createConfig();
+        this(onUpdate, Math.min(Runtime.getRuntime().availableProcessors(), MAX_OCR_THREADS));
+    }
+
+    SudokuReader(OnUpdate onUpdate, int ocrThreads) {
+        NativeLibraries.loadOpenCV();
 
         this.onUpdate = onUpdate;
 
-        this.tesseract = new Tesseract();
+        this.input = new Mat();
+        this.ocrInput = new Mat();
+        this.ocrBuffer = new byte[0];
+
+        Map<String, String> variables = new LinkedHashMap<>();
+        variables.put("debug_file", "/dev/null");
+        variables.put("load_system_dawg", "F");
+        variables.put("load_freq_dawg", "F");
+        variables.put("tessedit_char_whitelist", "123456789");
 
-        this.tesseract.setDatapath(dataPath);
-        this.tesseract.setTessVariable("debug_file", "/dev/null");
-        this.tesseract.setTessVariable("load_system_dawg", "F");
-        this.tesseract.setTessVariable("load_freq_dawg", "F");
-        this.tesseract.setTessVariable("tessedit_char_whitelist", "123456789");
-        this.tesseract.setPageSegMode(10);
+        this.tesseracts = new TesseractPool(ocrThreads, NativeLibraries::getTessdataPath, "eng", 10, variables);
+        this.classifier = DigitClassifier.withBundledTemplates();
+        this.ocrMode = OCR_MODE.STRIP;
 
         this.debug = false;
     }
 
     Sudoku readSudoku(BufferedImage bufferedImage) {
-        try {
-            Mat image = imageToMat(bufferedImage);
-
-            return this.readSudoku(image);
-        } catch (IOException e) {
-            e.printStackTrace();
-
-            return null;
-        }
+        return this.readSudoku(imageToMat(bufferedImage, this.input));
     }
 
     Sudoku readSudoku(String imgPath) {
@@ -71,15 +91,13 @@ class SudokuReader {
     Sudoku readSudoku(Mat image) {
         this.original = image;
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
 
         Mat gridDetectionImage = prepareImageForGridDetection(image);
-        Mat OCRImage = prepareImageForOCR(image);
 
         if (this.debug) {
             showMat(image, "Original", 2, 5, 0);
             showMat(gridDetectionImage, "Grid detection", 2, 5, 1);
-            showMat(OCRImage,"OCR", 2, 5, 2);
         }
 
         PrunedBBoxes bboxes = this.getBBoxes(image, gridDetectionImage);
@@ -100,9 +118,9 @@ class SudokuReader {
         List<Double> cols = this.extractGridValues(corners, GRID_VALUES.COLUMNS);
 
         if (rows.size() != 10 && cols.size() != 10) {
-            System.out.println("Could not read sudoku");
-            System.out.println(rows.size());
-            System.out.println(cols.size());
+            if (this.debug) {
+                System.err.println("Could not read sudoku: found " + rows.size() + " rows and " + cols.size() + " columns");
+            }
 
             return null;
         }
@@ -122,14 +140,27 @@ class SudokuReader {
 
         boolean[] usedBoxes = this.getUsedBoxes(boxes, bboxes.getRemaining());
 
-        BufferedImage ocrImage = matToImage(OCRImage);
+        // Only the grid is binarized and handed to OCR, through a view of the original instead of a full-frame copy.
+        Rect gridBounds = getGridBounds(boxes, image);
+        Mat OCRImage = prepareImageForOCR(image.submat(gridBounds), this.ocrInput);
+
+        if (this.debug) {
+            showMat(OCRImage, "OCR", 2, 5, 2);
+        }
+
+        int length = (int) (OCRImage.total() * OCRImage.elemSize());
+        if (this.ocrBuffer.length < length) {
+            this.ocrBuffer = new byte[length];
+        }
+
+        BufferedImage ocrImage = matToImage(OCRImage, this.ocrBuffer);
 
-        int[] values = readBoxes(ocrImage, boxes, usedBoxes);
+        int[] values = readBoxes(ocrImage, translateBoxes(boxes, -gridBounds.x, -gridBounds.y), usedBoxes);
 
-        long elapsed = System.currentTimeMillis() - start;
-        double elapsedSeconds = (double) elapsed / 1000.0;
-        String message = String.format("Took %.4f seconds to read", elapsedSeconds);
-        System.out.println(message);
+        if (this.debug) {
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            System.err.println(String.format("Took %.4f seconds to read", elapsedSeconds));
+        }
 
         return new Sudoku(values);
     }
@@ -138,7 +169,16 @@ class SudokuReader {
         this.debug = active;
     }
 
-    private static Mat prepareImageForGridDetection(Mat image) {
+    void setOCRMode(OCR_MODE ocrMode) {
+        this.ocrMode = ocrMode;
+    }
+
+    @Override
+    public void close() {
+        this.tesseracts.close();
+    }
+
+    static Mat prepareImageForGridDetection(Mat image) {
         Mat result = new Mat();
 
         Imgproc.cvtColor(image, result, Imgproc.COLOR_BGR2GRAY);
@@ -147,16 +187,18 @@ class SudokuReader {
         return result;
     }
 
-    private static Mat prepareImageForOCR(Mat image) {
-        Mat result = new Mat();
+    static Mat prepareImageForOCR(Mat image) {
+        return prepareImageForOCR(image, new Mat());
+    }
 
+    static Mat prepareImageForOCR(Mat image, Mat result) {
         Imgproc.cvtColor(image, result, Imgproc.COLOR_BGR2GRAY);
         Imgproc.threshold(result, result, 200, 255, Imgproc.THRESH_BINARY);
 
         return result;
     }
 
-    private PrunedBBoxes getBBoxes(Mat original, Mat image) {
+    PrunedBBoxes getBBoxes(Mat original, Mat image) {
         List<MatOfPoint> contours = new ArrayList<>();
         Imgproc.findContours(image, contours, new Mat(), Imgproc.RETR_CCOMP, Imgproc.CHAIN_APPROX_SIMPLE);
 
@@ -213,7 +255,7 @@ class SudokuReader {
         return new PrunedBBoxes(pruned, remaining);
     }
 
-    private boolean[] getUsedBoxes(Rectangle[] boxes, List<Rect> remainingBBoxes) {
+    boolean[] getUsedBoxes(Rectangle[] boxes, List<Rect> remainingBBoxes) {
         boolean[] usedBoxes = new boolean[boxes.length];
         Arrays.fill(usedBoxes, false);
 
@@ -261,7 +303,7 @@ class SudokuReader {
         return sorted.entrySet().iterator().next().getKey();
     }
 
-    private List<Point> getCornersFromRects(List<Rect> rects) {
+    List<Point> getCornersFromRects(List<Rect> rects) {
         List<Point> corners = new ArrayList<>();
         for (Rect rect : rects) {
             corners.addAll(getCornersFromRect(rect));
@@ -342,7 +384,7 @@ class SudokuReader {
         return grouped;
     }
 
-    private List<Double> extractGridValues(List<Point> points, GRID_VALUES gridValues) {
+    List<Double> extractGridValues(List<Point> points, GRID_VALUES gridValues) {
         List<Double> values = points
                 .stream()
                 .map(point -> gridValues == GRID_VALUES.COLUMNS ? point.x : point.y)
@@ -364,10 +406,9 @@ class SudokuReader {
         return new Point(x, y);
     }
 
-    private Rectangle[] getBoxes(List<Double> rows, List<Double> cols) {
+    Rectangle[] getBoxes(List<Double> rows, List<Double> cols) {
         Rectangle[] boxes = new Rectangle[81];
         final double margin = 0.009 * Math.min(this.original.width(), this.original.height());
-        System.out.println(margin);
 
         int index = 0;
         for (int row = 0; row < 9; row++) {
@@ -381,35 +422,74 @@ class SudokuReader {
             }
         }
 
-        System.out.println(boxes[0].width);
-
         return boxes;
     }
 
-    private int readROI(BufferedImage image, Rectangle rectangle) {
+    private static Rect getGridBounds(Rectangle[] boxes, Mat image) {
+        Rectangle bounds = new Rectangle(boxes[0]);
+        for (Rectangle box : boxes) {
+            bounds.add(box);
+        }
+
+        bounds = bounds.intersection(new Rectangle(0, 0, image.width(), image.height()));
+
+        return new Rect(bounds.x, bounds.y, bounds.width, bounds.height);
+    }
+
+    private static Rectangle[] translateBoxes(Rectangle[] boxes, int dx, int dy) {
+        Rectangle[] translated = new Rectangle[boxes.length];
+
+        for (int i = 0; i < boxes.length; i++) {
+            translated[i] = new Rectangle(boxes[i]);
+            translated[i].translate(dx, dy);
+        }
+
+        return translated;
+    }
+
+    private static int readROI(CompletableFuture<String> recognized) {
         try {
-            String result = this.tesseract.doOCR(image, rectangle).trim().replaceAll("[^0-9]", "");
+            String result = recognized.join().trim().replaceAll("[^0-9]", "");
 
             if (result.equals("")) {
                 return 0;
             }
 
             return Integer.parseInt(result);
-        } catch (TesseractException | NumberFormatException e) {
+        } catch (NumberFormatException e) {
             return 0;
         }
     }
 
-    private int[] readBoxes(BufferedImage image, Rectangle[] boxes, boolean[] usedBoxes) {
+    int[] readBoxes(BufferedImage image, Rectangle[] boxes, boolean[] usedBoxes) {
         int[] values = new int[boxes.length];
+        List<Integer> unknown = new ArrayList<>();
 
         for (int i = 0; i < boxes.length; i++) {
-            boolean isUsed = usedBoxes[i];
+            int digit = usedBoxes[i] ? this.classifier.classify(image, boxes[i]) : 0;
 
-            if (isUsed) {
-                values[i] = readROI(image, boxes[i]);
+            if (digit == DigitClassifier.UNKNOWN) {
+                unknown.add(i);
             } else {
-                values[i] = 0;
+                values[i] = digit;
+            }
+        }
+
+        if (this.ocrMode == OCR_MODE.STRIP && unknown.size() > 1) {
+            this.readStrip(image, boxes, unknown, values);
+        }
+
+        List<CompletableFuture<String>> recognized = new ArrayList<>(Collections.nCopies(boxes.length, null));
+
+        for (int i : unknown) {
+            if (values[i] == 0) {
+                recognized.set(i, this.tesseracts.recognize(image, boxes[i]));
+            }
+        }
+
+        for (int i = 0; i < boxes.length; i++) {
+            if (recognized.get(i) != null) {
+                values[i] = readROI(recognized.get(i));
             }
 
             this.onUpdate.run(values);
@@ -418,6 +498,26 @@ class SudokuReader {
         return values;
     }
 
+    private void readStrip(BufferedImage image, Rectangle[] boxes, List<Integer> cells, int[] values) {
+        Rectangle[] regions = new Rectangle[cells.size()];
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = boxes[cells.get(i)];
+        }
+
+        DigitStrip strip = DigitStrip.compose(image, regions);
+        int[] stripValues;
+
+        try {
+            stripValues = strip.read(this.tesseracts.recognizeLine(strip.getImage()).join());
+        } catch (CompletionException e) {
+            return;
+        }
+
+        for (int i = 0; i < regions.length; i++) {
+            values[cells.get(i)] = stripValues[i];
+        }
+    }
+
     private static void drawGrid(Mat img, List<Double> rows, List<Double> cols) {
         double xMin = cols.get(0), xMax = cols.get(cols.size() - 1);
         double yMin = rows.get(0), yMax = rows.get(rows.size() - 1);
@@ -442,27 +542,74 @@ class SudokuReader {
         Imgproc.line(img, start, end, new Scalar(0, 255, 0), 2);
     }
 
-    private static BufferedImage matToImage(Mat mat) {
-        byte[] data = new byte[mat.width() * mat.height() * (int) mat.elemSize()];
+    static BufferedImage matToImage(Mat mat) {
+        return matToImage(mat, new byte[(int) (mat.total() * mat.elemSize())]);
+    }
+
+    // Wraps the buffer instead of copying into a new image, so every call gets a new image backed by the same pixels.
+    static BufferedImage matToImage(Mat mat, byte[] buffer) {
+        int channels = mat.channels();
 
-        mat.get(0, 0, data);
-        int type = mat.channels() == 1 ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_3BYTE_BGR;
+        if (mat.depth() != CvType.CV_8U || (channels != 1 && channels != 3)) {
+            throw new IllegalArgumentException("Only 8-bit grayscale and BGR images are supported");
+        }
 
-        BufferedImage out = new BufferedImage(mat.width(), mat.height(), type);
-        out.getRaster().setDataElements(0, 0, mat.width(), mat.height(), data);
+        mat.get(0, 0, buffer);
 
-        return out;
+        DataBufferByte dataBuffer = new DataBufferByte(buffer, buffer.length);
+        int[] bandOffsets = channels == 1 ? new int[]{0} : new int[]{2, 1, 0};
+        WritableRaster raster = Raster.createInterleavedRaster(
+                dataBuffer,
+                mat.width(),
+                mat.height(),
+                mat.width() * channels,
+                channels,
+                bandOffsets,
+                null
+        );
+
+        return new BufferedImage(channels == 1 ? GRAY_MODEL : BGR_MODEL, raster, false, null);
+    }
+
+    static Mat imageToMat(BufferedImage image) {
+        return imageToMat(image, new Mat());
     }
 
-    private static Mat imageToMat(BufferedImage image) throws IOException {
-        BufferedImage imagePNG = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
-        imagePNG.createGraphics().drawImage(image, 0, 0, Color.WHITE, null);
+    static Mat imageToMat(BufferedImage image, Mat result) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        if (image.getType() == BufferedImage.TYPE_BYTE_GRAY && hasPackedBytes(image, 1)) {
+            Mat gray = new Mat(height, width, CvType.CV_8UC1);
+            gray.put(0, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData());
+            Imgproc.cvtColor(gray, result, Imgproc.COLOR_GRAY2BGR);
+            gray.release();
+
+            return result;
+        }
+
+        BufferedImage bgr = image;
+
+        if (image.getType() != BufferedImage.TYPE_3BYTE_BGR || !hasPackedBytes(image, 3)) {
+            bgr = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+
+            Graphics2D graphics = bgr.createGraphics();
+            graphics.drawImage(image, 0, 0, Color.WHITE, null);
+            graphics.dispose();
+        }
+
+        result.create(height, width, CvType.CV_8UC3);
+        result.put(0, 0, ((DataBufferByte) bgr.getRaster().getDataBuffer()).getData());
+
+        return result;
+    }
 
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ImageIO.write(imagePNG, "png", byteArrayOutputStream);
-        byteArrayOutputStream.flush();
+    private static boolean hasPackedBytes(BufferedImage image, int channels) {
+        WritableRaster raster = image.getRaster();
 
-        return Imgcodecs.imdecode(new MatOfByte(byteArrayOutputStream.toByteArray()), Imgcodecs.IMREAD_UNCHANGED);
+        return raster.getParent() == null
+                && raster.getDataBuffer().getNumBanks() == 1
+                && raster.getDataBuffer().getSize() == image.getWidth() * image.getHeight() * channels;
     }
 
     private static void showMat(Mat img, String name, int rows, int cols, int index) {
@@ -481,15 +628,9 @@ class SudokuReader {
 
         Mat resized = new Mat();
         Imgproc.resize(img, resized, new Size(img.width() * ratio, img.height() * ratio));
-        MatOfByte matOfByte = new MatOfByte();
-        Imgcodecs.imencode(".jpg", resized, matOfByte);
-
-        byte[] byteArray = matOfByte.toArray();
-        BufferedImage bufImage;
 
         try {
-            InputStream in = new ByteArrayInputStream(byteArray);
-            bufImage = ImageIO.read(in);
+            BufferedImage bufImage = matToImage(resized);
             JFrame frame = new JFrame();
 
             frame.setLocation(x, y);
@@ -511,57 +652,7 @@ class SudokuReader {
         return gs[0].getDisplayMode();
     }
 
-    private static void loadLib() {
-        try {
-            System.loadLibrary(Core.NATIVE_LIBRARY_NAME);
-        } catch (UnsatisfiedLinkError e) {
-            System.out.println(e.getMessage());
-
-            String libName = System.mapLibraryName(Core.NATIVE_LIBRARY_NAME);
-            String folder = copyResource(libName, libName, "temp/opencv");
-
-            System.load(folder + "/" + libName);
-        }
-    }
-
-    private static String createConfig() {
-        return copyResource( "eng.traineddata", "tessdata/eng.traineddata", "temp/tessdata");
-    }
-
-    private static String copyResource(String name, String source, String destination) {
-        InputStream inputStream = SudokuReader.class.getClassLoader().getResourceAsStream(source);
-        OutputStream outputStream;
-
-        if (inputStream == null) {
-            throw new RuntimeException();
-        }
-
-        File folder = new File(destination);
-        folder.mkdirs();
-
-        File target;
-
-        try {
-            byte[] buffer = new byte[inputStream.available()];
-
-            target = new File(folder.getAbsolutePath() + "/" + name);
-            outputStream = new FileOutputStream(target);
-
-            int length;
-            while ((length = inputStream.read(buffer)) > 0) {
-                outputStream.write(buffer, 0, length);
-            }
-
-            inputStream.close();
-            outputStream.close();
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-
-        return folder.getAbsolutePath();
-    }
-
-    private static class PrunedBBoxes {
+    static class PrunedBBoxes {
         private final List<Rect> pruned;
         private final List<Rect> remaining;
 
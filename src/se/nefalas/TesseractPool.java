@@ -0,0 +1,262 @@
+package se.nefalas;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.Closeable;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+class TesseractPool implements Closeable {
+
+    private final BlockingQueue<Engine> engines;
+    private final List<Engine> createdEngines;
+    private final ExecutorService executor;
+    private final int size;
+
+    private final Supplier<String> dataPath;
+    private final String language;
+    private final int pageSegMode;
+    private final Map<String, String> variables;
+
+    TesseractPool(int size, Supplier<String> dataPath, String language, int pageSegMode, Map<String, String> variables) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Tesseract pool size must be positive");
+        }
+
+        this.size = size;
+        this.engines = new ArrayBlockingQueue<>(size);
+        this.createdEngines = new ArrayList<>(size);
+        this.executor = createExecutor(size);
+
+        this.dataPath = dataPath;
+        this.language = language;
+        this.pageSegMode = pageSegMode;
+        this.variables = variables;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    CompletableFuture<String> recognize(BufferedImage image, Rectangle region) {
+        return this.submit(engine -> engine.recognize(image, region));
+    }
+
+    CompletableFuture<List<Symbol>> recognizeLine(BufferedImage image) {
+        return this.submit(engine -> engine.recognizeSymbols(image, ITessAPI.TessPageSegMode.PSM_SINGLE_LINE));
+    }
+
+    private <T> CompletableFuture<T> submit(Function<Engine, T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            // Each executor thread holds at most one engine, so this starts no more than size of them.
+            Engine engine = this.engines.poll();
+
+            if (engine == null) {
+                engine = new Engine(this.dataPath.get(), this.language, this.pageSegMode, this.variables);
+
+                synchronized (this.createdEngines) {
+                    this.createdEngines.add(engine);
+                }
+            }
+
+            try {
+                return task.apply(engine);
+            } finally {
+                this.engines.add(engine);
+            }
+        }, this.executor);
+    }
+
+    @Override
+    public void close() {
+        this.executor.shutdown();
+
+        boolean isTerminated = awaitTermination(this.executor);
+
+        synchronized (this.createdEngines) {
+            // An engine is only deleted once no task can be using it, so after an interrupted wait only the idle
+            // ones go, and the rest are left to the tasks still holding them.
+            List<Engine> ended = isTerminated ? new ArrayList<>(this.createdEngines) : new ArrayList<>();
+
+            if (!isTerminated) {
+                this.engines.drainTo(ended);
+            }
+
+            for (Engine engine : ended) {
+                engine.end();
+            }
+
+            this.createdEngines.removeAll(ended);
+            this.engines.clear();
+        }
+    }
+
+    private static boolean awaitTermination(ExecutorService executor) {
+        try {
+            return executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+    }
+
+    private static ExecutorService createExecutor(int size) {
+        AtomicInteger count = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "Tesseract-" + count.incrementAndGet());
+            thread.setDaemon(true);
+
+            return thread;
+        });
+    }
+
+    private static class Engine {
+        private final ITessAPI.TessBaseAPI handle;
+        private BufferedImage image;
+
+        Engine(String dataPath, String language, int pageSegMode, Map<String, String> variables) {
+            this.handle = TessAPI1.TessBaseAPICreate();
+
+            if (TessAPI1.TessBaseAPIInit3(this.handle, dataPath, language) != 0) {
+                TessAPI1.TessBaseAPIDelete(this.handle);
+
+                throw new IllegalStateException("Could not load Tesseract language data from " + dataPath);
+            }
+
+            TessAPI1.TessBaseAPISetPageSegMode(this.handle, pageSegMode);
+            variables.forEach((name, value) -> TessAPI1.TessBaseAPISetVariable(this.handle, name, value));
+        }
+
+        String recognize(BufferedImage image, Rectangle region) {
+            this.setImage(image);
+
+            TessAPI1.TessBaseAPISetRectangle(this.handle, region.x, region.y, region.width, region.height);
+
+            Pointer text = TessAPI1.TessBaseAPIGetUTF8Text(this.handle);
+
+            if (text == null) {
+                return "";
+            }
+
+            try {
+                return text.getString(0, "UTF-8");
+            } finally {
+                TessAPI1.TessDeleteText(text);
+            }
+        }
+
+        List<Symbol> recognizeSymbols(BufferedImage image, int pageSegMode) {
+            int defaultPageSegMode = TessAPI1.TessBaseAPIGetPageSegMode(this.handle);
+
+            this.setImage(image);
+            TessAPI1.TessBaseAPISetPageSegMode(this.handle, pageSegMode);
+
+            try {
+                if (TessAPI1.TessBaseAPIRecognize(this.handle, null) != 0) {
+                    return Collections.emptyList();
+                }
+
+                ITessAPI.TessResultIterator iterator = TessAPI1.TessBaseAPIGetIterator(this.handle);
+
+                if (iterator == null) {
+                    return Collections.emptyList();
+                }
+
+                try {
+                    return readSymbols(iterator);
+                } finally {
+                    TessAPI1.TessResultIteratorDelete(iterator);
+                }
+            } finally {
+                TessAPI1.TessBaseAPISetPageSegMode(this.handle, defaultPageSegMode);
+            }
+        }
+
+        private static List<Symbol> readSymbols(ITessAPI.TessResultIterator iterator) {
+            List<Symbol> symbols = new ArrayList<>();
+            ITessAPI.TessPageIterator pageIterator = TessAPI1.TessResultIteratorGetPageIterator(iterator);
+            int level = ITessAPI.TessPageIteratorLevel.RIL_SYMBOL;
+            IntBuffer left = IntBuffer.allocate(1);
+            IntBuffer top = IntBuffer.allocate(1);
+            IntBuffer right = IntBuffer.allocate(1);
+            IntBuffer bottom = IntBuffer.allocate(1);
+
+            do {
+                Pointer text = TessAPI1.TessResultIteratorGetUTF8Text(iterator, level);
+
+                if (text == null) {
+                    continue;
+                }
+
+                try {
+                    TessAPI1.TessPageIteratorBoundingBox(pageIterator, level, left, top, right, bottom);
+
+                    Rectangle bounds = new Rectangle(left.get(0), top.get(0), right.get(0) - left.get(0), bottom.get(0) - top.get(0));
+                    symbols.add(new Symbol(text.getString(0, "UTF-8"), bounds));
+                } finally {
+                    TessAPI1.TessDeleteText(text);
+                }
+            } while (TessAPI1.TessResultIteratorNext(iterator, level) == ITessAPI.TRUE);
+
+            return symbols;
+        }
+
+        private void setImage(BufferedImage image) {
+            if (this.image != image) {
+                int bytesPerPixel = image.getColorModel().getPixelSize() / 8;
+
+                TessAPI1.TessBaseAPISetImage(
+                        this.handle,
+                        ImageIOHelper.convertImageData(image),
+                        image.getWidth(),
+                        image.getHeight(),
+                        bytesPerPixel,
+                        image.getWidth() * bytesPerPixel
+                );
+                this.image = image;
+            }
+        }
+
+        void end() {
+            TessAPI1.TessBaseAPIEnd(this.handle);
+            TessAPI1.TessBaseAPIDelete(this.handle);
+        }
+    }
+
+    static class Symbol {
+        private final String text;
+        private final Rectangle bounds;
+
+        Symbol(String text, Rectangle bounds) {
+            this.text = text;
+            this.bounds = bounds;
+        }
+
+        String getText() {
+            return this.text;
+        }
+
+        Rectangle getBounds() {
+            return this.bounds;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package se.nefalas;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+class UpdateChannel<T> {
+
+    private final AtomicReferenceArray<T> latest;
+    private final AtomicLongArray nextSample;
+    private final long samplingInterval;
+
+    UpdateChannel(int slots, long samplingInterval, TimeUnit unit) {
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException("Sampling interval cannot be negative");
+        }
+
+        this.latest = new AtomicReferenceArray<>(slots);
+        this.nextSample = new AtomicLongArray(slots);
+        this.samplingInterval = unit.toNanos(samplingInterval);
+
+        long now = System.nanoTime();
+
+        for (int slot = 0; slot < slots; slot++) {
+            this.nextSample.set(slot, now);
+        }
+    }
+
+    int size() {
+        return this.latest.length();
+    }
+
+    boolean isDue(int slot) {
+        if (this.samplingInterval == 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        long next = this.nextSample.get(slot);
+
+        return now - next >= 0 && this.nextSample.compareAndSet(slot, next, now + this.samplingInterval);
+    }
+
+    void publish(int slot, T value) {
+        this.latest.set(slot, value);
+    }
+
+    T poll(int slot) {
+        return this.latest.getAndSet(slot, null);
+    }
+}
@@ -0,0 +1,91 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BatchSolverTest {
+
+    private static final String PUZZLE = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String SEVENTEEN_CLUE = "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+    private static final String SEVENTEEN_CLUE_SOLUTION = "693784512487512936125963874932651487568247391741398625319475268856129743274836159";
+    private static final String GRID =
+            "..3|.2.|6..\n" +
+            "9..|3.5|..1\n" +
+            "..1|8.6|4..\n" +
+            "---+---+---\n" +
+            "..8|1.2|9..\n" +
+            "7..|...|..8\n" +
+            "..6|7.8|2..\n" +
+            "---+---+---\n" +
+            "..2|6.9|5..\n" +
+            "8..|2.3|..9\n" +
+            "..5|.1.|3..\n";
+
+    private static final String INPUT = "1234\n" + PUZZLE + "\n" + "\n" + GRID + "x" + PUZZLE.substring(1) + "\n" + SEVENTEEN_CLUE;
+    private static final List<String> OUTPUT = Arrays.asList("", SOLUTION, "", SOLUTION, "", SEVENTEEN_CLUE_SOLUTION);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesOneLinePerMappedRecord() throws IOException {
+        Path input = this.directory.resolve("puzzles.txt");
+        Path output = this.directory.resolve("solutions.txt");
+        Files.write(input, INPUT.getBytes(StandardCharsets.US_ASCII));
+
+        new BatchSolver(Computer.ENGINE.DANCING_LINKS, 1).solve(input.toString(), output.toString());
+
+        assertEquals(OUTPUT, Files.readAllLines(output));
+    }
+
+    @Test
+    void writesOneLinePerStreamedRecord() throws IOException {
+        Path output = this.directory.resolve("solutions.txt");
+        InputStream in = System.in;
+
+        try {
+            System.setIn(new ByteArrayInputStream(INPUT.getBytes(StandardCharsets.US_ASCII)));
+            new BatchSolver(Computer.ENGINE.DANCING_LINKS, 1).solve("-", output.toString());
+        } finally {
+            System.setIn(in);
+        }
+
+        assertEquals(OUTPUT, Files.readAllLines(output));
+    }
+
+    @Test
+    void readsGridsAcrossBufferRefills() throws IOException {
+        Path output = this.directory.resolve("solutions.txt");
+        StringBuilder input = new StringBuilder();
+        InputStream in = System.in;
+
+        for (int i = 0; i < 1000; i++) {
+            input.append(GRID);
+        }
+
+        try {
+            System.setIn(new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.US_ASCII)));
+            new BatchSolver(Computer.ENGINE.DANCING_LINKS, 1).solve("-", output.toString());
+        } finally {
+            System.setIn(in);
+        }
+
+        List<String> lines = Files.readAllLines(output);
+
+        assertEquals(1000, lines.size());
+        assertEquals(1, lines.stream().distinct().count());
+        assertEquals(SOLUTION, lines.get(0));
+    }
+}
@@ -0,0 +1,81 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BranchingStrategyTest {
+
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    @Test
+    void firstEmptyTakesLowestIndex() {
+        Sudoku sudoku = new Sudoku(HARD);
+
+        assertEquals(1, BranchingStrategy.FIRST_EMPTY.selectIndex(sudoku));
+    }
+
+    @Test
+    void minimumRemainingValuesTakesFewestCandidates() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+
+        sudoku.removeCandidates(50, 0b111111000);
+        sudoku.removeCandidates(40, 0b111111100);
+
+        assertEquals(0, BranchingStrategy.FIRST_EMPTY.selectIndex(sudoku));
+        assertEquals(40, BranchingStrategy.MINIMUM_REMAINING_VALUES.selectIndex(sudoku));
+        assertEquals(40, BranchingStrategy.MOST_CONSTRAINED.selectIndex(sudoku));
+    }
+
+    @Test
+    void mostConstrainedBreaksTiesByEmptyPeers() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+
+        sudoku.removeCandidates(0, 0b111111100);
+        sudoku.removeCandidates(80, 0b111111100);
+
+        // Filling a peer of the first cell leaves the last one with more empty peers.
+        sudoku.setValue(1, 9);
+
+        assertEquals(0, BranchingStrategy.MINIMUM_REMAINING_VALUES.selectIndex(sudoku));
+        assertEquals(80, BranchingStrategy.MOST_CONSTRAINED.selectIndex(sudoku));
+    }
+
+    @Test
+    void takesFirstCellWithAtMostOneCandidate() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+
+        sudoku.removeCandidates(30, 0b111111110);
+        sudoku.removeCandidates(60, 0b111111111);
+
+        assertEquals(30, BranchingStrategy.MINIMUM_REMAINING_VALUES.selectIndex(sudoku));
+    }
+
+    @Test
+    void returnsNoIndexForFullGrid() {
+        Sudoku sudoku = new Sudoku(HARD_SOLUTION);
+
+        assertEquals(-1, BranchingStrategy.FIRST_EMPTY.selectIndex(sudoku));
+        assertEquals(-1, BranchingStrategy.MINIMUM_REMAINING_VALUES.selectIndex(sudoku));
+        assertEquals(-1, BranchingStrategy.MOST_CONSTRAINED.selectIndex(sudoku));
+    }
+
+    @Test
+    void everyStrategySolvesWithBacktracking() {
+        BranchingStrategy[] strategies = {
+                BranchingStrategy.FIRST_EMPTY,
+                BranchingStrategy.MINIMUM_REMAINING_VALUES,
+                BranchingStrategy.MOST_CONSTRAINED
+        };
+
+        for (BranchingStrategy strategy : strategies) {
+            Computer computer = new Computer((sudoku, index) -> {}, (sudoku, index, stats) -> {});
+            computer.setBranchingStrategy(strategy);
+
+            Sudoku solved = computer.solveSequential(new Sudoku(HARD), Computer.ENGINE.BACKTRACKING);
+
+            assertEquals(HARD_SOLUTION, solved.toString());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CanonicalFormTest {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    @Test
+    void equivalentPuzzlesShareKey() {
+        Sudoku puzzle = new Sudoku(HARD);
+        String key = CanonicalForm.of(puzzle).getKey();
+
+        assertEquals(key, CanonicalForm.of(relabel(puzzle)).getKey());
+        assertEquals(key, CanonicalForm.of(transpose(puzzle)).getKey());
+        assertEquals(key, CanonicalForm.of(swapBands(transpose(relabel(puzzle)))).getKey());
+        assertNotEquals(key, CanonicalForm.of(new Sudoku(EASY)).getKey());
+    }
+
+    @Test
+    void mapsSolutionsBetweenEquivalentPuzzles() {
+        Sudoku puzzle = new Sudoku(HARD);
+        Sudoku solution = new Sudoku(HARD_SOLUTION);
+        Sudoku other = swapBands(transpose(relabel(puzzle)));
+
+        CanonicalForm form = CanonicalForm.of(puzzle);
+        CanonicalForm otherForm = CanonicalForm.of(other);
+        assertNotNull(form);
+        assertNotNull(otherForm);
+
+        // The same symmetries applied to the solution give the solution of the transformed puzzle.
+        assertEquals(swapBands(transpose(relabel(solution))).toString(), otherForm.fromCanonical(form.toCanonical(solution)).toString());
+        assertEquals(solution.toString(), form.fromCanonical(form.toCanonical(solution)).toString());
+    }
+
+    @Test
+    void supportsUpToNineByNine() {
+        assertTrue(CanonicalForm.isSupported(Geometry.of(3)));
+        assertFalse(CanonicalForm.isSupported(Geometry.of(4)));
+    }
+
+    private static Sudoku relabel(Sudoku sudoku) {
+        int[] values = new int[81];
+
+        for (int i = 0; i < 81; i++) {
+            int value = sudoku.getValue(i);
+            values[i] = value == 0 ? 0 : value % 9 + 1;
+        }
+
+        return new Sudoku(values);
+    }
+
+    private static Sudoku transpose(Sudoku sudoku) {
+        int[] values = new int[81];
+
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                values[column * 9 + row] = sudoku.getValue(row, column);
+            }
+        }
+
+        return new Sudoku(values);
+    }
+
+    private static Sudoku swapBands(Sudoku sudoku) {
+        int[] values = new int[81];
+
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                values[((row + 3) % 9) * 9 + column] = sudoku.getValue(row, column);
+            }
+        }
+
+        return new Sudoku(values);
+    }
+}
@@ -0,0 +1,106 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ComputerTest {
+
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    private final AtomicLong updateCount = new AtomicLong();
+    private final AtomicInteger solveCount = new AtomicInteger();
+
+    @Test
+    void completesFutureWithSolution() throws Exception {
+        Computer computer = this.createComputer();
+
+        for (Computer.ENGINE engine : Computer.ENGINE.values()) {
+            CompletableFuture<Sudoku> future = computer.solve(new Sudoku(HARD), engine);
+
+            assertEquals(HARD_SOLUTION, future.get(10, TimeUnit.SECONDS).toString());
+        }
+    }
+
+    @Test
+    void completesFutureWithNullWithoutSolution() throws Exception {
+        Computer computer = this.createComputer();
+        String conflicting = "88" + HARD.substring(2);
+
+        for (Computer.ENGINE engine : Computer.ENGINE.values()) {
+            assertNull(computer.solve(new Sudoku(conflicting), engine).get(10, TimeUnit.SECONDS));
+        }
+
+        assertEquals(0, this.solveCount.get());
+    }
+
+    @Test
+    void failsWithTimeoutAfterDeadline() throws Exception {
+        Computer computer = this.createComputer();
+        CompletableFuture<Sudoku> future = computer.solve(createDeadEnd(), Computer.ENGINE.BACKTRACKING, 100, TimeUnit.MILLISECONDS);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+        this.assertSearchStops();
+    }
+
+    @Test
+    void stopsSearchWhenCancelled() throws Exception {
+        Computer computer = this.createComputer();
+        CompletableFuture<Sudoku> future = computer.solve(createDeadEnd(), Computer.ENGINE.BACKTRACKING);
+
+        while (this.updateCount.get() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertTrue(future.cancel(true));
+        this.assertSearchStops();
+        assertEquals(0, this.solveCount.get());
+    }
+
+    private Computer createComputer() {
+        Computer computer = new Computer(
+                (sudoku, index) -> this.updateCount.incrementAndGet(),
+                (sudoku, index, stats) -> this.solveCount.incrementAndGet()
+        );
+        computer.setParallelism(1);
+        computer.setBranchingStrategy(BranchingStrategy.FIRST_EMPTY);
+
+        return computer;
+    }
+
+    private void assertSearchStops() throws InterruptedException {
+        Thread.sleep(100);
+        long updates = this.updateCount.get();
+        Thread.sleep(200);
+
+        assertEquals(updates, this.updateCount.get());
+    }
+
+    // The last cell has no candidates, but taking cells in order only finds that out after filling every other one,
+    // so the search runs until it is stopped.
+    private static Sudoku createDeadEnd() {
+        int[] values = new int[81];
+
+        for (int column = 0; column < 8; column++) {
+            values[72 + column] = column + 1;
+        }
+
+        values[8] = 9;
+
+        return new Sudoku(values);
+    }
+}
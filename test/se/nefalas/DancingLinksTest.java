@@ -0,0 +1,71 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DancingLinksTest {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String EASY_SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String SEVENTEEN_CLUE = "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+    private static final String SEVENTEEN_CLUE_SOLUTION = "693784512487512936125963874932651487568247391741398625319475268856129743274836159";
+
+    @Test
+    void solvesKnownPuzzles() {
+        DancingLinks dancingLinks = new DancingLinks();
+
+        assertEquals(EASY_SOLUTION, dancingLinks.solve(new Sudoku(EASY)).toString());
+        assertEquals(HARD_SOLUTION, dancingLinks.solve(new Sudoku(HARD)).toString());
+        assertEquals(SEVENTEEN_CLUE_SOLUTION, dancingLinks.solve(new Sudoku(SEVENTEEN_CLUE)).toString());
+    }
+
+    @Test
+    void solvesOtherBoxSizes() {
+        DancingLinks dancingLinks = new DancingLinks();
+
+        // Both puzzles have a single solution, the grid their holes were punched in.
+        for (int boxSize : new int[]{2, 4}) {
+            Geometry geometry = Geometry.of(boxSize);
+            int[] values = new int[geometry.cells];
+
+            for (int row = 0; row < geometry.size; row++) {
+                for (int column = 0; column < geometry.size; column++) {
+                    values[geometry.getIndex(row, column)] = (boxSize * (row % boxSize) + row / boxSize + column) % geometry.size + 1;
+                }
+            }
+
+            String solution = new Sudoku(values.clone()).toString();
+
+            for (int i = 0; i < values.length; i += 3) {
+                values[i] = 0;
+            }
+
+            assertEquals(solution, dancingLinks.solve(new Sudoku(values)).toString());
+        }
+    }
+
+    @Test
+    void reusesColumnsBetweenSolves() {
+        DancingLinks dancingLinks = new DancingLinks();
+
+        dancingLinks.solve(new Sudoku(HARD));
+
+        assertEquals(EASY_SOLUTION, dancingLinks.solve(new Sudoku(EASY)).toString());
+    }
+
+    @Test
+    void returnsNullWithoutSolution() {
+        Sudoku puzzle = new Sudoku("11" + EASY.substring(2).replace('3', '0'));
+
+        assertNull(new DancingLinks().solve(puzzle));
+    }
+
+    @Test
+    void stopsWhenAsked() {
+        assertNull(new DancingLinks().solve(new Sudoku(SEVENTEEN_CLUE), () -> true, new SolveStats()));
+    }
+}
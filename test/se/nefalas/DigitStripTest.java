@@ -0,0 +1,134 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DigitStripTest {
+
+    private static final int CELL_SIZE = 50;
+    private static final int[] DIGITS = {7, 0, 3, 9, 1};
+
+    @Test
+    void mapsSymbolsToSlots() {
+        DigitStrip strip = compose();
+        List<TesseractPool.Symbol> symbols = findSymbols(strip.getImage(), DIGITS);
+
+        assertEquals(4, symbols.size());
+        assertArrayEquals(DIGITS, strip.read(symbols));
+    }
+
+    @Test
+    void ignoresSymbolOrder() {
+        DigitStrip strip = compose();
+        List<TesseractPool.Symbol> symbols = findSymbols(strip.getImage(), DIGITS);
+        Collections.reverse(symbols);
+
+        assertArrayEquals(DIGITS, strip.read(symbols));
+    }
+
+    @Test
+    void leavesUnclearSlotsEmpty() {
+        DigitStrip strip = compose();
+        List<TesseractPool.Symbol> symbols = findSymbols(strip.getImage(), DIGITS);
+
+        Rectangle first = symbols.get(0).getBounds();
+        symbols.add(new TesseractPool.Symbol("1", new Rectangle(first.x + 1, first.y, 2, first.height)));
+        symbols.set(1, new TesseractPool.Symbol("S", symbols.get(1).getBounds()));
+        symbols.remove(3);
+        symbols.add(new TesseractPool.Symbol("4", new Rectangle(strip.getImage().getWidth() + 10, 0, 5, 5)));
+
+        assertArrayEquals(new int[]{0, 0, 0, 9, 0}, strip.read(symbols));
+    }
+
+    @Test
+    void cropsDigitsAndSpacesThemApart() {
+        BufferedImage image = compose().getImage();
+        List<TesseractPool.Symbol> symbols = findSymbols(image, DIGITS);
+        int inkTop = image.getHeight();
+        int inkBottom = 0;
+
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                if ((image.getRGB(x, y) & 0xFF) < 128) {
+                    inkTop = Math.min(inkTop, y);
+                    inkBottom = Math.max(inkBottom, y);
+                }
+            }
+        }
+
+        int spacing = Math.max((inkBottom - inkTop + 1) / 2, 4);
+
+        // Only the ink of each cell is kept, so the strip is narrower than the cells it was taken from.
+        assertTrue(image.getWidth() < CELL_SIZE * DIGITS.length);
+        assertEquals(spacing, inkTop);
+        assertEquals(spacing, image.getHeight() - 1 - inkBottom);
+        assertTrue(symbols.get(0).getBounds().x >= spacing);
+
+        for (int i = 1; i < symbols.size(); i++) {
+            Rectangle previous = symbols.get(i - 1).getBounds();
+
+            assertTrue(symbols.get(i).getBounds().x - (previous.x + previous.width) >= spacing);
+        }
+    }
+
+    private static DigitStrip compose() {
+        BufferedImage image = new BufferedImage(CELL_SIZE * DIGITS.length, CELL_SIZE, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D graphics = image.createGraphics();
+        Rectangle[] regions = new Rectangle[DIGITS.length];
+
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 36));
+
+        for (int i = 0; i < DIGITS.length; i++) {
+            regions[i] = new Rectangle(i * CELL_SIZE, 0, CELL_SIZE, CELL_SIZE);
+
+            if (DIGITS[i] != 0) {
+                graphics.drawString(String.valueOf(DIGITS[i]), i * CELL_SIZE + 15, 40);
+            }
+        }
+
+        graphics.dispose();
+
+        return DigitStrip.compose(image, regions);
+    }
+
+    // Stands in for Tesseract by reporting every run of inked columns as one symbol, labelled with the next digit.
+    private static List<TesseractPool.Symbol> findSymbols(BufferedImage image, int[] digits) {
+        List<TesseractPool.Symbol> symbols = new ArrayList<>();
+        int[] labels = Arrays.stream(digits).filter(digit -> digit != 0).toArray();
+        int runStart = -1;
+
+        for (int x = 0; x <= image.getWidth(); x++) {
+            boolean hasInk = false;
+
+            for (int y = 0; x < image.getWidth() && y < image.getHeight() && !hasInk; y++) {
+                hasInk = (image.getRGB(x, y) & 0xFF) < 128;
+            }
+
+            if (hasInk && runStart < 0) {
+                runStart = x;
+            } else if (!hasInk && runStart >= 0) {
+                Rectangle bounds = new Rectangle(runStart, 0, x - runStart, image.getHeight());
+                symbols.add(new TesseractPool.Symbol(String.valueOf(labels[symbols.size()]), bounds));
+                runStart = -1;
+            }
+        }
+
+        return symbols;
+    }
+}
@@ -0,0 +1,85 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneratorTest {
+
+    @Test
+    void generatesUniquePuzzlesForEverySymmetry() {
+        Random random = new Random(1);
+
+        for (Generator.SYMMETRY symmetry : Generator.SYMMETRY.values()) {
+            for (int i = 0; i < 5; i++) {
+                Sudoku puzzle = new Generator(symmetry, 32).generate(random);
+
+                assertTrue(SolutionCounter.hasUniqueSolution(puzzle), symmetry + " " + puzzle);
+                assertTrue(countClues(puzzle) >= 32, symmetry + " " + puzzle);
+                assertSymmetric(symmetry, puzzle);
+            }
+        }
+    }
+
+    @Test
+    void stopsRemovingCluesAtTarget() {
+        Random random = new Random(2);
+
+        for (int i = 0; i < 5; i++) {
+            Sudoku puzzle = new Generator(Generator.SYMMETRY.NONE, 45).generate(random);
+
+            assertEquals(45, countClues(puzzle));
+            assertTrue(SolutionCounter.hasUniqueSolution(puzzle));
+        }
+    }
+
+    @Test
+    void generatesRequestedCountInParallel() {
+        List<Sudoku> puzzles = new Generator(Generator.SYMMETRY.ROTATIONAL, 30).generate(8, 2);
+
+        assertEquals(8, puzzles.size());
+
+        for (Sudoku puzzle : puzzles) {
+            assertTrue(SolutionCounter.hasUniqueSolution(puzzle), puzzle.toString());
+        }
+    }
+
+    private static void assertSymmetric(Generator.SYMMETRY symmetry, Sudoku puzzle) {
+        for (int row = 0; row < 9; row++) {
+            for (int column = 0; column < 9; column++) {
+                boolean isGiven = puzzle.getValue(row, column) != 0;
+
+                switch (symmetry) {
+                    case ROTATIONAL:
+                        assertEquals(isGiven, puzzle.getValue(8 - row, 8 - column) != 0);
+                        break;
+                    case MIRROR:
+                        assertEquals(isGiven, puzzle.getValue(row, 8 - column) != 0);
+                        break;
+                    case DIAGONAL:
+                        assertEquals(isGiven, puzzle.getValue(column, row) != 0);
+                        break;
+                    case NONE:
+                    default:
+                        break;
+                }
+            }
+        }
+    }
+
+    private static int countClues(Sudoku puzzle) {
+        int clues = 0;
+
+        for (int i = 0; i < 81; i++) {
+            if (puzzle.getValue(i) != 0) {
+                clues++;
+            }
+        }
+
+        return clues;
+    }
+}
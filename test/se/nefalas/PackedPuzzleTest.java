@@ -0,0 +1,87 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PackedPuzzleTest {
+
+    private static final String PUZZLE = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+    @Test
+    void roundTripsNineByNinePuzzles() throws IOException {
+        Geometry geometry = Geometry.of(3);
+        byte[] packed = write(geometry, new Sudoku(PUZZLE), new Sudoku(SOLUTION), new Sudoku(new int[81]));
+
+        // 81 cells of 4 bits each take 41 bytes per record.
+        assertEquals(PackedPuzzleWriter.HEADER_LENGTH + 3 * 41, packed.length);
+        assertTrue(PackedPuzzleReader.isPacked(new BufferedInputStream(new ByteArrayInputStream(packed))));
+
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(new ByteArrayInputStream(packed))) {
+            assertEquals(9, reader.getGeometry().size);
+            assertEquals(PUZZLE, new Sudoku(reader.read()).toString());
+            assertEquals(SOLUTION, new Sudoku(reader.read()).toString());
+            assertArrayEquals(new int[81], reader.read());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void roundTripsLargestValues() throws IOException {
+        for (int boxSize = Geometry.MIN_BOX_SIZE; boxSize <= Geometry.MAX_BOX_SIZE; boxSize++) {
+            Geometry geometry = Geometry.of(boxSize);
+            int[] values = new int[geometry.cells];
+
+            for (int i = 0; i < values.length; i++) {
+                values[i] = i % (geometry.size + 1);
+            }
+
+            try (PackedPuzzleReader reader = new PackedPuzzleReader(new ByteArrayInputStream(write(geometry, new Sudoku(values.clone()))))) {
+                assertEquals(geometry.size, reader.getGeometry().size);
+                assertArrayEquals(values, reader.read());
+            }
+        }
+    }
+
+    @Test
+    void rejectsTruncatedRecord() throws IOException {
+        byte[] packed = write(Geometry.of(3), new Sudoku(PUZZLE));
+
+        try (PackedPuzzleReader reader = new PackedPuzzleReader(new ByteArrayInputStream(Arrays.copyOf(packed, packed.length - 1)))) {
+            assertThrows(EOFException.class, reader::read);
+        }
+    }
+
+    @Test
+    void leavesTextInputUnpacked() throws IOException {
+        byte[] text = (PUZZLE + "\n").getBytes(StandardCharsets.US_ASCII);
+
+        assertFalse(PackedPuzzleReader.isPacked(new BufferedInputStream(new ByteArrayInputStream(text))));
+    }
+
+    private static byte[] write(Geometry geometry, Sudoku... puzzles) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        try (PackedPuzzleWriter writer = new PackedPuzzleWriter(output, geometry)) {
+            for (Sudoku puzzle : puzzles) {
+                writer.write(puzzle);
+            }
+        }
+
+        return output.toByteArray();
+    }
+}
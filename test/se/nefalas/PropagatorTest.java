@@ -0,0 +1,164 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PropagatorTest {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String EASY_SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+    private static final String SEVENTEEN_CLUE = "000000010400000000020000000000050407008000300001090000300400200050100000000806000";
+    private static final String SEVENTEEN_CLUE_SOLUTION = "693784512487512936125963874932651487568247391741398625319475268856129743274836159";
+
+    @Test
+    void singlesSolveEasyPuzzle() {
+        Sudoku sudoku = new Sudoku(EASY);
+
+        new Propagator(Propagator.SINGLES).propagate(sudoku);
+
+        assertEquals(EASY_SOLUTION, sudoku.toString());
+        assertTrue(Propagator.SINGLES.containsAll(sudoku.getTechniques()));
+        assertEquals(Propagator.DIFFICULTY.EASY, sudoku.getDifficulty());
+    }
+
+    @Test
+    void techniquesKeepSolutionCandidates() {
+        String[][] puzzles = {{HARD, HARD_SOLUTION}, {SEVENTEEN_CLUE, SEVENTEEN_CLUE_SOLUTION}};
+
+        for (String[] puzzle : puzzles) {
+            Sudoku solution = new Sudoku(puzzle[1]);
+            Sudoku sudoku = new Sudoku(puzzle[0]);
+
+            new Propagator(Propagator.ALL_TECHNIQUES).propagate(sudoku);
+
+            for (int i = 0; i < 81; i++) {
+                int value = sudoku.getValue(i);
+
+                if (value != 0) {
+                    assertEquals(solution.getValue(i), value);
+                } else {
+                    assertTrue((sudoku.getCandidates(i) & 1 << (solution.getValue(i) - 1)) != 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    void nakedPairRemovesCandidatesFromHouse() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+        int pair = 0b11;
+
+        restrict(sudoku, 0, pair);
+        restrict(sudoku, 1, pair);
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.NAKED_PAIR)).propagate(sudoku);
+
+        for (int column = 2; column < 9; column++) {
+            assertEquals(0, sudoku.getCandidates(column) & pair);
+        }
+
+        assertEquals(0, sudoku.getCandidates(9) & pair);
+        assertEquals(pair, sudoku.getCandidates(27) & pair);
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.NAKED_PAIR));
+    }
+
+    @Test
+    void nakedTripleRemovesCandidatesFromRow() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+
+        restrict(sudoku, 0, 0b011);
+        restrict(sudoku, 4, 0b110);
+        restrict(sudoku, 8, 0b101);
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.NAKED_TRIPLE)).propagate(sudoku);
+
+        for (int column : new int[]{1, 2, 3, 5, 6, 7}) {
+            assertEquals(0, sudoku.getCandidates(column) & 0b111);
+        }
+
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.NAKED_TRIPLE));
+    }
+
+    @Test
+    void hiddenPairRestrictsItsCells() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+        int pair = 0b11;
+
+        for (int column = 2; column < 9; column++) {
+            sudoku.removeCandidates(column, pair);
+        }
+
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.HIDDEN_PAIR)).propagate(sudoku);
+
+        assertEquals(pair, sudoku.getCandidates(0));
+        assertEquals(pair, sudoku.getCandidates(1));
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.HIDDEN_PAIR));
+    }
+
+    @Test
+    void hiddenTripleRestrictsItsCells() {
+        Sudoku sudoku = new Sudoku(new int[81]);
+        int triple = 0b111;
+
+        for (int column = 3; column < 9; column++) {
+            sudoku.removeCandidates(column, triple);
+        }
+
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.HIDDEN_TRIPLE)).propagate(sudoku);
+
+        for (int column = 0; column < 3; column++) {
+            assertEquals(triple, sudoku.getCandidates(column));
+        }
+
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.HIDDEN_TRIPLE));
+    }
+
+    @Test
+    void nakedTripleWorksOnLargeGrids() {
+        Geometry geometry = Geometry.of(5);
+        Sudoku sudoku = new Sudoku(new int[geometry.cells]);
+        int triple = 0b111;
+
+        // The triple sits in three different boxes, so only the row can be cleared.
+        restrict(sudoku, 0, triple);
+        restrict(sudoku, 7, triple);
+        restrict(sudoku, 24, triple);
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.NAKED_TRIPLE)).propagate(sudoku);
+
+        for (int column = 1; column < geometry.size; column++) {
+            if (column != 7 && column != 24) {
+                assertEquals(0, sudoku.getCandidates(column) & triple);
+            }
+        }
+
+        assertEquals(geometry.allValues, sudoku.getCandidates(geometry.size));
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.NAKED_TRIPLE));
+    }
+
+    @Test
+    void hiddenTripleWorksOnLargeGrids() {
+        Geometry geometry = Geometry.of(5);
+        Sudoku sudoku = new Sudoku(new int[geometry.cells]);
+        int triple = 0b111 << 22;
+
+        for (int column = 3; column < geometry.size; column++) {
+            sudoku.removeCandidates(column, triple);
+        }
+
+        new Propagator(EnumSet.of(Propagator.TECHNIQUE.HIDDEN_TRIPLE)).propagate(sudoku);
+
+        for (int column = 0; column < 3; column++) {
+            assertEquals(triple, sudoku.getCandidates(column));
+        }
+
+        assertTrue(sudoku.getTechniques().contains(Propagator.TECHNIQUE.HIDDEN_TRIPLE));
+    }
+
+    private static void restrict(Sudoku sudoku, int index, int mask) {
+        sudoku.removeCandidates(index, sudoku.getGeometry().allValues & ~mask);
+    }
+}
@@ -0,0 +1,114 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PuzzleParserTest {
+
+    private static final String PUZZLE = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String GRID =
+            "..3|.2.|6..\n" +
+            "9..|3.5|..1\n" +
+            "..1|8.6|4..\n" +
+            "---+---+---\n" +
+            "..8|1.2|9..\n" +
+            "7..|...|..8\n" +
+            "..6|7.8|2..\n" +
+            "---+---+---\n" +
+            "..2|6.9|5..\n" +
+            "8..|2.3|..9\n" +
+            "..5|.1.|3..\n";
+
+    @Test
+    void parsesDigitsAndDots() {
+        int[] values = PuzzleParser.parse(PUZZLE);
+
+        assertEquals(81, values.length);
+        assertEquals(0, values[0]);
+        assertEquals(3, values[2]);
+        assertEquals(2, values[4]);
+        assertEquals(PUZZLE, new Sudoku(values).toString());
+    }
+
+    @Test
+    void skipsGridSeparators() {
+        assertArrayEquals(PuzzleParser.parse(PUZZLE), PuzzleParser.parse(GRID));
+    }
+
+    @Test
+    void readsLettersAsValuesAboveNine() {
+        StringBuilder builder = new StringBuilder("9ABCDEFGa");
+
+        while (builder.length() < 256) {
+            builder.append('0');
+        }
+
+        int[] values = PuzzleParser.parse(builder.toString());
+
+        assertEquals(256, values.length);
+        assertArrayEquals(new int[]{9, 10, 11, 12, 13, 14, 15, 16, 10}, Arrays.copyOf(values, 9));
+    }
+
+    @Test
+    void rejectsMalformedPuzzles() {
+        assertThrows(NumberFormatException.class, () -> PuzzleParser.parse("x" + PUZZLE.substring(1)));
+        assertThrows(NumberFormatException.class, () -> PuzzleParser.parse("A" + PUZZLE.substring(1)));
+        assertThrows(IllegalArgumentException.class, () -> PuzzleParser.parse(PUZZLE.substring(1)));
+    }
+
+    @Test
+    void endsSingleLineRecordsAtTheirNewline() {
+        byte[] input = bytes(PUZZLE + "\n" + PUZZLE + "\n");
+
+        assertEquals(81, PuzzleParser.findRecordEnd(input, 0, input.length, true));
+        assertEquals(163, PuzzleParser.findRecordEnd(input, 82, input.length, true));
+        assertEquals(-1, PuzzleParser.findRecordEnd(input, 164, input.length, true));
+    }
+
+    @Test
+    void readsWholeGridAsOneRecord() {
+        byte[] input = bytes(GRID + PUZZLE);
+
+        assertEquals(GRID.length() - 1, PuzzleParser.findRecordEnd(input, 0, input.length, true));
+    }
+
+    @Test
+    void waitsForTheRestOfAGrid() {
+        byte[] input = bytes(GRID);
+
+        assertEquals(-1, PuzzleParser.findRecordEnd(input, 0, 40, false));
+        assertEquals(-1, PuzzleParser.findRecordEnd(input, 0, 5, false));
+    }
+
+    @Test
+    void keepsShortLineFromSwallowingFollowingPuzzles() {
+        byte[] input = bytes("1234\n" + PUZZLE + "\n" + PUZZLE + "\n");
+
+        assertEquals(4, PuzzleParser.findRecordEnd(input, 0, input.length, true));
+    }
+
+    @Test
+    void endsTruncatedGridAfterItsFirstLine() {
+        byte[] input = bytes("..3|.2.|6..\n9..|3.5|..1\n");
+
+        assertEquals(11, PuzzleParser.findRecordEnd(input, 0, input.length, true));
+    }
+
+    @Test
+    void treatsBlankLineAsRecord() {
+        byte[] input = bytes("\n" + PUZZLE);
+
+        assertEquals(0, PuzzleParser.findRecordEnd(input, 0, input.length, true));
+        assertEquals(0, PuzzleParser.countCells(input, 0, 0));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
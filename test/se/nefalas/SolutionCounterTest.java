@@ -0,0 +1,79 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolutionCounterTest {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String EASY_SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+
+    @Test
+    void findsUniqueSolution() {
+        Sudoku puzzle = new Sudoku(EASY);
+
+        assertTrue(SolutionCounter.hasUniqueSolution(puzzle));
+        assertEquals(1, SolutionCounter.countSolutions(puzzle, 10));
+        assertEquals(EASY_SOLUTION, new SolutionCounter(puzzle).next().toString());
+    }
+
+    @Test
+    void stopsAtLimit() {
+        Sudoku empty = new Sudoku(new int[81]);
+
+        assertEquals(5, SolutionCounter.countSolutions(empty, 5));
+        assertFalse(SolutionCounter.hasUniqueSolution(empty));
+    }
+
+    @Test
+    void countsEveryShidokuGrid() {
+        assertEquals(288, SolutionCounter.countSolutions(new Sudoku(new int[16]), 1000));
+    }
+
+    @Test
+    void enumeratesDistinctSolutions() {
+        Sudoku puzzle = new Sudoku(new int[16]);
+        SolutionCounter counter = new SolutionCounter(puzzle);
+        Set<String> solutions = new HashSet<>();
+
+        while (counter.hasNext()) {
+            Sudoku solution = counter.next();
+            Geometry geometry = solution.getGeometry();
+            int[] rows = new int[4];
+            int[] columns = new int[4];
+            int[] blocks = new int[4];
+
+            for (int i = 0; i < 16; i++) {
+                int bit = 1 << (solution.getValue(i) - 1);
+
+                rows[geometry.rowOf[i]] |= bit;
+                columns[geometry.columnOf[i]] |= bit;
+                blocks[geometry.blockOf[i]] |= bit;
+            }
+
+            for (int house = 0; house < 4; house++) {
+                assertEquals(0b1111, rows[house]);
+                assertEquals(0b1111, columns[house]);
+                assertEquals(0b1111, blocks[house]);
+            }
+
+            assertTrue(solutions.add(solution.toString()));
+        }
+
+        assertEquals(288, solutions.size());
+        assertFalse(counter.hasNext());
+    }
+
+    @Test
+    void rejectsConflictingGivens() {
+        Sudoku puzzle = new Sudoku("11" + EASY.substring(2));
+
+        assertEquals(0, SolutionCounter.countSolutions(puzzle, 2));
+    }
+}
@@ -0,0 +1,145 @@
+package se.nefalas;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SolveCacheTest {
+
+    private static final String EASY = "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    private static final String EASY_SOLUTION = "483921657967345821251876493548132976729564138136798245372689514814253769695417382";
+    private static final String HARD = "800000000003600000070090200050007000000045700000100030001000068008500010090000400";
+    private static final String HARD_SOLUTION = "812753649943682175675491283154237896369845721287169534521974368438526917796318452";
+
+    // Solves take this long so canonical lookups always pay off against them.
+    private static final long SLOW = Long.MAX_VALUE / 4;
+
+    @Test
+    void hitsRepeatedPuzzle() {
+        SolveCache cache = new SolveCache(4);
+
+        solve(cache, EASY, 0);
+        Sudoku cached = cache.lookup(new Sudoku(EASY)).getSolution();
+
+        assertNotNull(cached);
+        assertEquals(EASY_SOLUTION, cached.toString());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void hitsRelabelledPuzzleAfterSlowSolve() {
+        SolveCache cache = new SolveCache(4);
+
+        solve(cache, HARD, SLOW);
+        Sudoku cached = cache.lookup(new Sudoku(relabel(HARD))).getSolution();
+
+        assertNotNull(cached);
+        assertEquals(relabel(HARD_SOLUTION), cached.toString());
+
+        // The canonical hit is stored under the relabelled puzzle, so asking again is an exact hit.
+        assertEquals(relabel(HARD_SOLUTION), cache.lookup(new Sudoku(relabel(HARD))).getSolution().toString());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void skipsCanonicalFormAfterFastSolve() {
+        SolveCache cache = new SolveCache(4);
+
+        solve(cache, EASY, 0);
+
+        assertNull(cache.lookup(new Sudoku(relabel(EASY))).getSolution());
+        assertEquals(0, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        SolveCache cache = new SolveCache(1);
+
+        solve(cache, EASY, SLOW);
+        solve(cache, HARD, SLOW);
+
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull(cache.lookup(new Sudoku(EASY)).getSolution());
+        assertEquals(HARD_SOLUTION, cache.lookup(new Sudoku(HARD)).getSolution().toString());
+    }
+
+    @Test
+    void evictedPuzzleIsNotFoundByCanonicalForm() {
+        SolveCache cache = new SolveCache(1);
+
+        solve(cache, HARD, SLOW);
+        solve(cache, EASY, SLOW);
+
+        assertNull(cache.lookup(new Sudoku(relabel(HARD))).getSolution());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    void countsCanonicalHitsAgainstCapacity() {
+        SolveCache cache = new SolveCache(2);
+
+        solve(cache, HARD, SLOW);
+        assertNotNull(cache.lookup(new Sudoku(relabel(HARD))).getSolution());
+        assertEquals(2, cache.size());
+
+        solve(cache, EASY, SLOW);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(EASY_SOLUTION, cache.lookup(new Sudoku(EASY)).getSolution().toString());
+        assertEquals(relabel(HARD_SOLUTION), cache.lookup(new Sudoku(relabel(HARD))).getSolution().toString());
+        assertEquals(3, cache.getHitCount());
+    }
+
+    @Test
+    void cachesLargeGridsByExactKey() {
+        Geometry geometry = Geometry.of(4);
+        int[] values = new int[geometry.cells];
+
+        for (int row = 0; row < 16; row++) {
+            for (int column = 0; column < 16; column++) {
+                values[geometry.getIndex(row, column)] = (4 * (row % 4) + row / 4 + column) % 16 + 1;
+            }
+        }
+
+        String solution = new Sudoku(values.clone()).toString();
+
+        for (int i = 0; i < values.length; i += 3) {
+            values[i] = 0;
+        }
+
+        String puzzle = new Sudoku(values).toString();
+        SolveCache cache = new SolveCache(4);
+
+        solve(cache, puzzle, SLOW);
+
+        assertEquals(solution, cache.lookup(new Sudoku(puzzle)).getSolution().toString());
+        assertEquals(1, cache.getHitCount());
+    }
+
+    private static void solve(SolveCache cache, String puzzle, long solveNanos) {
+        SolveCache.Lookup lookup = cache.lookup(new Sudoku(puzzle));
+
+        assertNull(lookup.getSolution());
+        cache.put(lookup, new DancingLinks().solve(new Sudoku(puzzle)), solveNanos);
+    }
+
+    // Swaps every digit for the next one, which gives an equivalent puzzle with a different exact key.
+    private static String relabel(String puzzle) {
+        char[] cells = puzzle.toCharArray();
+
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i] != '0') {
+                cells[i] = (char) ('1' + (cells[i] - '0') % 9);
+            }
+        }
+
+        return new String(cells);
+    }
+}